@@ -13,7 +13,11 @@ public interface IShipmentRepository
     Task<IEnumerable<Shipment>> GetAllAsync(int page, int size, ShipmentStatus? statusFilter = null);
     Task<int> GetTotalCountAsync(ShipmentStatus? statusFilter = null);
     Task<Shipment> CreateAsync(Shipment shipment);
+    Task<IReadOnlyList<Shipment>> CreateManyAsync(IReadOnlyList<Shipment> shipments);
+    Task<IReadOnlyList<Exception?>> CreateEachAsync(IReadOnlyList<Shipment> shipments);
+    Task<ISet<long>> GetOrderIdsWithShipmentsAsync(IEnumerable<long> orderIds);
     Task<Shipment> UpdateAsync(Shipment shipment);
     Task<ShipmentHistory> AddHistoryAsync(ShipmentHistory history);
     Task<IEnumerable<ShipmentHistory>> GetHistoryAsync(long shipmentId);
+    Task<IEnumerable<Shipment>> GetUpdatedAfterAsync(DateTime afterUpdatedAt, long afterId, int limit);
 }
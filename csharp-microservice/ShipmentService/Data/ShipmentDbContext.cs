@@ -24,9 +24,14 @@ public class ShipmentDbContext : DbContext
         {
             entity.HasKey(e => e.Id);
             
-            entity.HasIndex(e => e.OrderId);
+            // One live shipment per order, so concurrent dispatch waves cannot both ship it;
+            // an order re-shipped after a cancellation keeps its cancelled shipment
+            entity.HasIndex(e => e.OrderId)
+                .IsUnique()
+                .HasFilter("status <> 'Cancelled'");
             entity.HasIndex(e => e.TrackingNumber).IsUnique();
             entity.HasIndex(e => e.Status);
+            entity.HasIndex(e => new { e.UpdatedAt, e.Id });
             
             entity.Property(e => e.Status)
                 .HasConversion<string>();
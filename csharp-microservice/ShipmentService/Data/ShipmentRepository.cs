@@ -30,7 +30,9 @@ public class ShipmentRepository : IShipmentRepository
         _logger.LogDebug("Getting shipment by order id: {OrderId}", orderId);
         return await _context.Shipments
             .Include(s => s.History.OrderByDescending(h => h.Timestamp))
-            .FirstOrDefaultAsync(s => s.OrderId == orderId);
+            .Where(s => s.OrderId == orderId)
+            .OrderByDescending(s => s.Id) // an order re-shipped after a cancellation has several; the newest is current
+            .FirstOrDefaultAsync();
     }
     
     public async Task<Shipment?> GetByTrackingNumberAsync(string trackingNumber)
@@ -87,6 +89,71 @@ public class ShipmentRepository : IShipmentRepository
         return shipment;
     }
     
+    public async Task<IReadOnlyList<Shipment>> CreateManyAsync(IReadOnlyList<Shipment> shipments)
+    {
+        _logger.LogInformation("Creating {Count} shipments in one batch", shipments.Count);
+        
+        var now = DateTime.UtcNow;
+        foreach (var shipment in shipments)
+        {
+            shipment.CreatedAt = now;
+            shipment.UpdatedAt = now;
+            foreach (var history in shipment.History)
+            {
+                history.Timestamp = now;
+            }
+        }
+        
+        // Shipments and their history rows go in a single SaveChanges (one transaction)
+        _context.Shipments.AddRange(shipments);
+        await _context.SaveChangesAsync();
+        
+        return shipments;
+    }
+    
+    public async Task<IReadOnlyList<Exception?>> CreateEachAsync(IReadOnlyList<Shipment> shipments)
+    {
+        _logger.LogInformation("Creating {Count} shipments one at a time", shipments.Count);
+        
+        // Forget the entities of a failed batch so each shipment is saved on its own
+        _context.ChangeTracker.Clear();
+        
+        var errors = new Exception?[shipments.Count];
+        for (var i = 0; i < shipments.Count; i++)
+        {
+            var shipment = shipments[i];
+            shipment.Id = 0;
+            foreach (var history in shipment.History)
+            {
+                history.Id = 0;
+                history.ShipmentId = 0;
+            }
+            
+            _context.Shipments.Add(shipment);
+            try
+            {
+                await _context.SaveChangesAsync();
+            }
+            catch (DbUpdateException ex)
+            {
+                errors[i] = ex;
+                _context.ChangeTracker.Clear();
+            }
+        }
+        
+        return errors;
+    }
+    
+    public async Task<ISet<long>> GetOrderIdsWithShipmentsAsync(IEnumerable<long> orderIds)
+    {
+        var ids = orderIds.ToList();
+        var existing = await _context.Shipments
+            .Where(s => ids.Contains(s.OrderId) && s.Status != ShipmentStatus.Cancelled)
+            .Select(s => s.OrderId)
+            .ToListAsync();
+        return existing.ToHashSet();
+    }
+    
     public async Task<Shipment> UpdateAsync(Shipment shipment)
     {
         _logger.LogInformation("Updating shipment: {Id}", shipment.Id);
@@ -118,4 +185,16 @@ public class ShipmentRepository : IShipmentRepository
             .OrderByDescending(h => h.Timestamp)
             .ToListAsync();
     }
-}
+    
+    public async Task<IEnumerable<Shipment>> GetUpdatedAfterAsync(DateTime afterUpdatedAt, long afterId, int limit)
+    {
+        // Keyset on (UpdatedAt, Id): rows sharing one UpdatedAt (a CreateManyAsync batch) can span pages
+        return await _context.Shipments
+            .AsNoTracking()
+            .Where(s => s.UpdatedAt > afterUpdatedAt || (s.UpdatedAt == afterUpdatedAt && s.Id > afterId))
+            .OrderBy(s => s.UpdatedAt)
+            .ThenBy(s => s.Id)
+            .Take(limit)
+            .ToListAsync();
+    }
+}
\ No newline at end of file
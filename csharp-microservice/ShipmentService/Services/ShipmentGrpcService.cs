@@ -1,4 +1,6 @@
 using Grpc.Core;
+using Microsoft.EntityFrameworkCore;
+using Npgsql;
 using ShipmentService.Data;
 using ShipmentService.Grpc;
 using ShipmentService.Models;
@@ -11,6 +13,11 @@ namespace ShipmentService.Services;
 /// </summary>
 public class ShipmentGrpcService : Grpc.ShipmentService.ShipmentServiceBase
 {
+    private const int StreamPageSize = 500;
+    
+    // Longer than any shipment write transaction takes to commit after setting UpdatedAt
+    private static readonly TimeSpan UpdateOverlap = TimeSpan.FromSeconds(30);
+    
     private readonly IShipmentRepository _repository;
     private readonly ILogger<ShipmentGrpcService> _logger;
     
@@ -85,6 +92,108 @@ public class ShipmentGrpcService : Grpc.ShipmentService.ShipmentServiceBase
         }
     }
     
+    /// <summary>
+    /// Create shipments for many orders at once. Orders that already have an active
+    /// shipment are reported as failures; the rest are saved in one transaction, or
+    /// one at a time when that transaction fails, so one bad order only fails itself.
+    /// </summary>
+    public override async Task<CreateShipmentsResponse> CreateShipments(
+        CreateShipmentsRequest request,
+        ServerCallContext context)
+    {
+        _logger.LogInformation("Creating {Count} shipments", request.Shipments.Count);
+        
+        var response = new CreateShipmentsResponse();
+        var alreadyShipped = await _repository.GetOrderIdsWithShipmentsAsync(
+            request.Shipments.Select(r => r.OrderId));
+        
+        var pending = new List<(int Index, Models.Shipment Shipment)>();
+        var results = new ShipmentResponse[request.Shipments.Count];
+        var seen = new HashSet<long>();
+        
+        for (var i = 0; i < request.Shipments.Count; i++)
+        {
+            var item = request.Shipments[i];
+            if (alreadyShipped.Contains(item.OrderId) || !seen.Add(item.OrderId))
+            {
+                results[i] = new ShipmentResponse
+                {
+                    Success = false,
+                    Message = $"Order {item.OrderId} already has a shipment"
+                };
+                continue;
+            }
+            
+            var shipment = new Models.Shipment
+            {
+                OrderId = item.OrderId,
+                TrackingNumber = GenerateTrackingNumber(),
+                Status = Models.ShipmentStatus.Pending,
+                RecipientName = item.RecipientName,
+                RecipientAddress = item.RecipientAddress,
+                RecipientCity = item.RecipientCity,
+                RecipientPostalCode = item.RecipientPostalCode,
+                RecipientCountry = item.RecipientCountry,
+                RecipientPhone = item.RecipientPhone,
+                WeightKg = item.WeightKg,
+                CurrentLocation = "Warehouse",
+                EstimatedDelivery = DateTime.UtcNow.AddDays(4),
+                Notes = item.Notes
+            };
+            shipment.History.Add(new ShipmentHistory
+            {
+                Status = Models.ShipmentStatus.Pending,
+                Location = "Warehouse",
+                Notes = "Shipment created"
+            });
+            pending.Add((i, shipment));
+        }
+        
+        var shipments = pending.Select(p => p.Shipment).ToList();
+        var errors = new Exception?[shipments.Count];
+        try
+        {
+            await _repository.CreateManyAsync(shipments);
+        }
+        catch (DbUpdateException ex)
+        {
+            _logger.LogWarning(ex, "Shipment batch failed, saving {Count} shipments one at a time", shipments.Count);
+            errors = (await _repository.CreateEachAsync(shipments)).ToArray();
+        }
+        catch (Exception ex)
+        {
+            _logger.LogError(ex, "Error creating shipment batch");
+            Array.Fill(errors, ex);
+        }
+        
+        for (var i = 0; i < pending.Count; i++)
+        {
+            var (index, shipment) = pending[i];
+            results[index] = errors[i] switch
+            {
+                null => new ShipmentResponse
+                {
+                    Success = true,
+                    Message = "Shipment created successfully",
+                    Shipment = MapToGrpcShipment(shipment)
+                },
+                { InnerException: PostgresException { SqlState: PostgresErrorCodes.UniqueViolation } } => new ShipmentResponse
+                {
+                    Success = false,
+                    Message = $"Order {shipment.OrderId} already has a shipment"
+                },
+                var error => new ShipmentResponse
+                {
+                    Success = false,
+                    Message = $"Error creating shipment: {(error.InnerException ?? error).Message}"
+                }
+            };
+        }
+        
+        response.Results.AddRange(results);
+        return response;
+    }
+    
     /// <summary>
     /// Get shipment by ID.
     /// </summary>
@@ -285,6 +394,12 @@ public class ShipmentGrpcService : Grpc.ShipmentService.ShipmentServiceBase
         IServerStreamWriter<ShipmentUpdate> responseStream,
         ServerCallContext context)
     {
+        if (request.ShipmentId == 0)
+        {
+            await StreamAllShipmentUpdates(request, responseStream, context);
+            return;
+        }
+        
         _logger.LogInformation("Starting shipment update stream for: {ShipmentId}", request.ShipmentId);
         
         var lastStatus = Models.ShipmentStatus.Pending;
@@ -301,7 +416,9 @@ public class ShipmentGrpcService : Grpc.ShipmentService.ShipmentServiceBase
                     Status = MapToGrpcStatus(shipment.Status),
                     Location = shipment.CurrentLocation ?? "",
                     Timestamp = shipment.UpdatedAt.ToString("O"),
-                    Notes = shipment.Notes ?? ""
+                    Notes = shipment.Notes ?? "",
+                    OrderId = shipment.OrderId,
+                    TrackingNumber = shipment.TrackingNumber
                 });
                 
                 lastStatus = shipment.Status;
@@ -319,13 +436,89 @@ public class ShipmentGrpcService : Grpc.ShipmentService.ShipmentServiceBase
         }
     }
     
+    /// <summary>
+    /// Stream every shipment change after request.UpdatedSince, oldest first, then keep tailing.
+    /// Pages on (UpdatedAt, Id) and, once caught up, re-reads the last UpdateOverlap so a row
+    /// whose transaction committed after newer rows were sent is still delivered. Rows already
+    /// sent in that window are skipped; a resumed stream may repeat a few updates.
+    /// </summary>
+    private async Task StreamAllShipmentUpdates(
+        StreamShipmentRequest request,
+        IServerStreamWriter<ShipmentUpdate> responseStream,
+        ServerCallContext context)
+    {
+        var since = DateTime.MinValue;
+        if (!string.IsNullOrEmpty(request.UpdatedSince) &&
+            DateTime.TryParse(request.UpdatedSince, null, System.Globalization.DateTimeStyles.AdjustToUniversal, out var parsed))
+        {
+            since = parsed;
+        }
+        
+        _logger.LogInformation("Starting update stream for all shipments since: {Since}", since);
+        
+        var cursorAt = Rewind(since);
+        long cursorId = 0;
+        var highWater = since;
+        // Shipment id -> UpdatedAt of the version already sent, for rows inside the overlap window
+        var sent = new Dictionary<long, DateTime>();
+        
+        while (!context.CancellationToken.IsCancellationRequested)
+        {
+            var changed = (await _repository.GetUpdatedAfterAsync(cursorAt, cursorId, StreamPageSize)).ToList();
+            
+            foreach (var shipment in changed)
+            {
+                cursorAt = shipment.UpdatedAt;
+                cursorId = shipment.Id;
+                if (shipment.UpdatedAt > highWater)
+                {
+                    highWater = shipment.UpdatedAt;
+                }
+                if (sent.TryGetValue(shipment.Id, out var sentAt) && sentAt >= shipment.UpdatedAt)
+                {
+                    continue;
+                }
+                
+                await responseStream.WriteAsync(new ShipmentUpdate
+                {
+                    ShipmentId = shipment.Id,
+                    Status = MapToGrpcStatus(shipment.Status),
+                    Location = shipment.CurrentLocation ?? "",
+                    Timestamp = shipment.UpdatedAt.ToString("O"),
+                    Notes = shipment.Notes ?? "",
+                    OrderId = shipment.OrderId,
+                    TrackingNumber = shipment.TrackingNumber
+                });
+                sent[shipment.Id] = shipment.UpdatedAt;
+            }
+            
+            // Drain backlog immediately; once caught up, step back into the overlap window and poll
+            if (changed.Count < StreamPageSize)
+            {
+                cursorAt = Rewind(highWater);
+                cursorId = 0;
+                foreach (var id in sent.Where(e => e.Value < cursorAt).Select(e => e.Key).ToList())
+                {
+                    sent.Remove(id);
+                }
+                await Task.Delay(1000, context.CancellationToken);
+            }
+        }
+    }
+    
+    private static DateTime Rewind(DateTime instant)
+    {
+        return instant - DateTime.MinValue > UpdateOverlap ? instant - UpdateOverlap : DateTime.MinValue;
+    }
+    
     #region Helper Methods
     
     private static string GenerateTrackingNumber()
     {
         var timestamp = DateTime.UtcNow.ToString("yyyyMMddHHmmss");
-        var random = new Random().Next(1000, 9999);
-        return $"SHP{timestamp}{random}";
+        // Batches create hundreds per second, so use a wider random suffix than 4 digits
+        var random = Random.Shared.Next(0, 100_000_000);
+        return $"SHP{timestamp}{random:D8}";
     }
     
     private static Grpc.Shipment MapToGrpcShipment(Models.Shipment shipment)
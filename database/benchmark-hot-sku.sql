@@ -0,0 +1,39 @@
+-- Benchmark (pgbench script): concurrent buyers of one SKU, with and without hot stock reservations.
+-- Each transaction is one order's database work for that product:
+--   hot=0  guarded UPDATE of the product row (the row lock is held until commit) + SALE ledger row
+--   hot=1  SALE ledger row only; about one in every :block_size orders first leases a block of stock
+--          (the in-memory counter work of HotStockReservations is not part of the database time)
+-- Give the product enough stock first, e.g.
+--   psql -d warehouse_db -c "UPDATE products SET quantity_in_stock = 100000000 WHERE id = 1"
+-- then compare throughput and latency at 1, 8 and 64 concurrent buyers:
+--   for c in 1 8 64; do
+--     pgbench -n -c $c -j $c -T 30 -D hot=0 -D product_id=1 -f benchmark-hot-sku.sql warehouse_db
+--     pgbench -n -c $c -j $c -T 30 -D hot=1 -D product_id=1 -D block_size=50 -f benchmark-hot-sku.sql warehouse_db
+--   done
+-- Afterwards clean up with
+--   DELETE FROM inventory_transactions WHERE notes = 'benchmark-hot-sku'; DELETE FROM stock_leases WHERE instance_id = 'benchmark';
+-- The rest of an order's work in the service (order and item inserts) is left out, which understates
+-- how long the row lock is held in the hot=0 case.
+
+\if :hot
+\set lease random(1, :block_size)
+\if :lease = 1
+-- Lease, committed on its own like HotStockReservations does
+BEGIN;
+UPDATE products p SET quantity_in_stock = p.quantity_in_stock - g.granted
+FROM (SELECT id, LEAST(quantity_in_stock, :block_size) AS granted FROM products WHERE id = :product_id FOR UPDATE) g
+WHERE p.id = g.id AND g.granted > 0;
+INSERT INTO stock_leases (product_id, instance_id, quantity, heartbeat_at)
+VALUES (:product_id, 'benchmark', :block_size, LOCALTIMESTAMP)
+ON CONFLICT (product_id, instance_id) DO UPDATE SET quantity = EXCLUDED.quantity, heartbeat_at = EXCLUDED.heartbeat_at;
+COMMIT;
+\endif
+\endif
+
+BEGIN;
+\if :hot = 0
+UPDATE products SET quantity_in_stock = quantity_in_stock - 1 WHERE id = :product_id AND quantity_in_stock - 1 >= 0;
+\endif
+INSERT INTO inventory_transactions (product_id, transaction_type, quantity, notes)
+VALUES (:product_id, 'SALE', -1, 'benchmark-hot-sku');
+COMMIT;
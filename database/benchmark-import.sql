@@ -0,0 +1,16 @@
+-- Benchmark input: synthetic supplier catalog for POST /api/products/import
+-- Writes products-import.csv to the current directory. Row count is set by :row_count (default 500000):
+--   psql -d warehouse_db -v row_count=500000 -f benchmark-import.sql
+-- Then time the import (token from POST /api/auth/login as an ADMIN or SUPERVISOR):
+--   curl -s -X POST http://localhost:8080/api/products/import -H "Authorization: Bearer $TOKEN" \
+--        -H "Content-Type: text/csv" --data-binary @products-import.csv
+-- The response reports durationMs; rows/sec = totalRows / durationMs * 1000.
+-- Running it a second time measures the update path (every SKU already exists).
+-- Remove the rows afterwards with: DELETE FROM products WHERE sku LIKE 'IMPORT-%';
+
+\if :{?row_count}
+\else
+\set row_count 500000
+\endif
+
+\copy (SELECT 'IMPORT-' || lpad(n::text, 8, '0') AS sku, (ARRAY['Wireless', 'Compact', 'Premium', 'Heavy Duty', 'Portable', 'Smart'])[1 + n % 6] || ' ' || (ARRAY['Headphones', 'Drill', 'Backpack', 'Lamp', 'Keyboard', 'Kettle', 'Router'])[1 + (n / 6) % 7] || ' ' || (n % 997) AS name, 'Imported catalog item ' || n || ', "supplier" edition' AS description, (SELECT name FROM categories ORDER BY id LIMIT 1 OFFSET n % (SELECT COUNT(*) FROM categories)) AS category_name, round((5 + random() * 995)::numeric, 2) AS price, round((2 + random() * 500)::numeric, 2) AS cost_price, (random() * 500)::int AS quantity_in_stock, 10 AS minimum_stock_level, 1000 AS maximum_stock_level, round((0.1 + random() * 20)::numeric, 3) AS weight_kg, chr(65 + n % 6) || '-' || lpad(((n / 6) % 50)::text, 2, '0') || '-' || (1 + n % 5) AS location, 'IMP' || lpad(n::text, 10, '0') AS barcode FROM generate_series(1, :row_count) AS n) TO 'products-import.csv' WITH (FORMAT csv, HEADER)
@@ -0,0 +1,74 @@
+-- Benchmark: inserting one large order with and without the old per-row order_items triggers.
+-- Needs enough in-stock products, e.g. after benchmark-products.sql. Line count is set by :line_count
+-- (default 500):
+--   psql -d warehouse_db -v line_count=500 -f benchmark-order-insert.sql
+-- Both runs are rolled back, so the database is left unchanged. Compare the timings of the
+-- order_items INSERT in "before" with the INSERT + UPDATE + INSERT in "after".
+
+\if :{?line_count}
+\else
+\set line_count 500
+\endif
+
+\timing on
+
+-- -----------------------------------------------------
+-- Before: per-row triggers (previous schema) - one stock UPDATE, one ledger INSERT and one
+-- correlated SUM over the order's items per inserted row
+-- -----------------------------------------------------
+BEGIN;
+
+CREATE FUNCTION bench_update_stock_on_order() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE products SET quantity_in_stock = quantity_in_stock - NEW.quantity WHERE id = NEW.product_id;
+    INSERT INTO inventory_transactions (product_id, transaction_type, quantity, reference_id, notes)
+    VALUES (NEW.product_id, 'SALE', -NEW.quantity, NEW.order_id, 'Order placed');
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE FUNCTION bench_update_order_total() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE orders SET total_amount = (
+        SELECT COALESCE(SUM(total_price), 0) FROM order_items WHERE order_id = NEW.order_id
+    ) WHERE id = NEW.order_id;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER bench_trigger_update_stock AFTER INSERT ON order_items
+    FOR EACH ROW EXECUTE FUNCTION bench_update_stock_on_order();
+CREATE TRIGGER bench_trigger_update_order_total AFTER INSERT OR UPDATE OR DELETE ON order_items
+    FOR EACH ROW EXECUTE FUNCTION bench_update_order_total();
+
+INSERT INTO orders (order_number, status, total_amount) VALUES ('BENCH-BEFORE', 'PENDING', 0) RETURNING id AS order_id \gset
+
+INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price)
+SELECT :order_id, p.id, 1, p.price, p.price
+FROM products p WHERE p.quantity_in_stock > 0 ORDER BY p.id LIMIT :line_count;
+
+ROLLBACK;
+
+-- -----------------------------------------------------
+-- After: no triggers - the application computes the total itself, reserves stock with one
+-- JDBC batch of guarded updates and batch-inserts the ledger rows (approximated here with
+-- one set-based statement each)
+-- -----------------------------------------------------
+BEGIN;
+
+INSERT INTO orders (order_number, status, total_amount) VALUES ('BENCH-AFTER', 'PENDING', 0) RETURNING id AS order_id \gset
+
+INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price)
+SELECT :order_id, p.id, 1, p.price, p.price
+FROM products p WHERE p.quantity_in_stock > 0 ORDER BY p.id LIMIT :line_count;
+
+UPDATE products p SET quantity_in_stock = p.quantity_in_stock - i.quantity
+FROM order_items i
+WHERE i.order_id = :order_id AND p.id = i.product_id AND p.quantity_in_stock >= i.quantity;
+
+INSERT INTO inventory_transactions (product_id, transaction_type, quantity, reference_id, notes)
+SELECT product_id, 'SALE', -quantity, order_id, 'Order placed' FROM order_items WHERE order_id = :order_id;
+
+ROLLBACK;
+
+\timing off
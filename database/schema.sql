@@ -2,12 +2,25 @@
 -- PostgreSQL 15+
 
 -- Drop existing tables if they exist (in correct order due to foreign keys)
+DROP TABLE IF EXISTS daily_product_sales CASCADE;
+DROP TABLE IF EXISTS category_inventory_snapshots CASCADE;
+DROP TABLE IF EXISTS rollup_watermarks CASCADE;
+DROP TABLE IF EXISTS stream_positions CASCADE;
+DROP TABLE IF EXISTS inventory_stock_snapshots CASCADE;
+DROP TABLE IF EXISTS inventory_transactions CASCADE;
 DROP TABLE IF EXISTS order_items CASCADE;
+DROP TABLE IF EXISTS stock_leases CASCADE;
+DROP TABLE IF EXISTS hot_products CASCADE;
 DROP TABLE IF EXISTS orders CASCADE;
 DROP TABLE IF EXISTS products CASCADE;
 DROP TABLE IF EXISTS categories CASCADE;
 DROP TABLE IF EXISTS users CASCADE;
 DROP TABLE IF EXISTS roles CASCADE;
+DROP SEQUENCE IF EXISTS order_number_seq;
+
+-- Per-row order item triggers from earlier schema versions
+DROP FUNCTION IF EXISTS update_stock_on_order() CASCADE;
+DROP FUNCTION IF EXISTS update_order_total() CASCADE;
 
 -- =====================================================
 -- ROLES TABLE
@@ -71,7 +84,13 @@ CREATE TABLE products (
     barcode VARCHAR(100),
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Full-text search document: name and SKU rank above description
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(sku, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED
 );
 
 -- =====================================================
@@ -105,7 +124,34 @@ CREATE TABLE orders (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     shipped_at TIMESTAMP,
-    delivered_at TIMESTAMP
+    delivered_at TIMESTAMP,
+    dispatch_claimed_at TIMESTAMP -- Set while a dispatch wave creates the shipment
+);
+
+-- =====================================================
+-- ORDER NUMBERS
+-- =====================================================
+-- Source of the NNNNNN part of ORD-yyyyMMdd-NNNNNN; nextval takes no lock
+CREATE SEQUENCE order_number_seq;
+
+-- =====================================================
+-- HOT PRODUCTS (stock reserved from in-memory counters)
+-- =====================================================
+-- Flash-sale products whose stock each server instance leases in blocks and
+-- reserves from memory, instead of every order locking the product row
+CREATE TABLE hot_products (
+    product_id INTEGER PRIMARY KEY REFERENCES products(id),
+    block_size INTEGER NOT NULL CHECK (block_size > 0),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Units moved out of products.quantity_in_stock into one instance's memory
+CREATE TABLE stock_leases (
+    product_id INTEGER NOT NULL REFERENCES products(id),
+    instance_id VARCHAR(64) NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 0), -- units still unused as of heartbeat_at
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (product_id, instance_id)
 );
 
 -- =====================================================
@@ -121,6 +167,10 @@ CREATE TABLE order_items (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Order item ids are allocated by the application in blocks of 50 so that
+-- item inserts can be sent as JDBC batches (must match allocationSize in OrderItem)
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+
 -- =====================================================
 -- INVENTORY TRANSACTIONS (for tracking stock changes)
 -- =====================================================
@@ -134,15 +184,89 @@ CREATE TYPE transaction_type AS ENUM (
     'RESERVED'       -- Reserved for order
 );
 
+-- Append-only ledger, written by the application in batches (InventoryLedger).
+-- Range-partitioned by month so inserts and per-product reads stay fast as it grows;
+-- the application creates partitions ahead of time, the default partition catches the rest.
 CREATE TABLE inventory_transactions (
-    id SERIAL PRIMARY KEY,
+    id BIGSERIAL,
     product_id INTEGER NOT NULL REFERENCES products(id),
     transaction_type transaction_type NOT NULL,
     quantity INTEGER NOT NULL, -- Positive for IN, negative for OUT
     reference_id INTEGER, -- Order ID or other reference
     notes TEXT,
     performed_by INTEGER REFERENCES users(id),
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE inventory_transactions_default PARTITION OF inventory_transactions DEFAULT;
+
+-- Create the partition for the month containing the given day (no-op if it exists)
+CREATE OR REPLACE FUNCTION create_inventory_transactions_partition(day_in_month DATE)
+RETURNS TEXT AS $$
+DECLARE
+    start_date DATE := date_trunc('month', day_in_month)::DATE;
+    partition_name TEXT := 'inventory_transactions_' || to_char(start_date, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF inventory_transactions FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_date, (start_date + INTERVAL '1 month')::DATE);
+    RETURN partition_name;
+END;
+$$ language 'plpgsql';
+
+-- Partitions from the seed data's first month through three months ahead
+SELECT create_inventory_transactions_partition(m::DATE)
+FROM generate_series(DATE '2024-11-01', date_trunc('month', CURRENT_DATE) + INTERVAL '3 months', INTERVAL '1 month') AS m;
+
+-- =====================================================
+-- REPORTING ROLLUPS (refreshed by the application scheduler)
+-- =====================================================
+-- Units and revenue per product per delivery day, over DELIVERED orders
+CREATE TABLE daily_product_sales (
+    sales_date DATE NOT NULL,
+    product_id INTEGER NOT NULL REFERENCES products(id),
+    units_sold BIGINT NOT NULL,
+    revenue DECIMAL(14, 2) NOT NULL,
+    PRIMARY KEY (sales_date, product_id)
+);
+
+-- Active stock per category, one row per category per day (category_id 0 = uncategorized)
+CREATE TABLE category_inventory_snapshots (
+    snapshot_date DATE NOT NULL,
+    category_id INTEGER NOT NULL,
+    category_name VARCHAR(100) NOT NULL,
+    product_count INTEGER NOT NULL,
+    total_units BIGINT NOT NULL,
+    total_cost_value DECIMAL(14, 2) NOT NULL,
+    total_retail_value DECIMAL(14, 2) NOT NULL,
+    PRIMARY KEY (snapshot_date, category_id)
+);
+
+-- Stock per product at a point in time, derived from the current stock and the ledger.
+-- The first run covers every product; later runs only products with ledger entries since
+-- the previous snapshot, so the nearest snapshot plus the ledger delta gives stock at any time.
+CREATE TABLE inventory_stock_snapshots (
+    product_id INTEGER NOT NULL REFERENCES products(id),
+    snapshot_at TIMESTAMP NOT NULL,
+    quantity INTEGER NOT NULL,
+    PRIMARY KEY (product_id, snapshot_at)
+);
+
+-- Source rows changed up to this point have been folded into the rollup
+CREATE TABLE rollup_watermarks (
+    rollup_name VARCHAR(50) PRIMARY KEY,
+    watermark TIMESTAMP NOT NULL
+);
+
+INSERT INTO rollup_watermarks (rollup_name, watermark) VALUES
+('daily_product_sales', '1970-01-01'),
+('inventory_stock_snapshots', '1970-01-01');
+
+-- Resume position of long-lived update streams (the shipment service's update stream)
+CREATE TABLE stream_positions (
+    stream_name VARCHAR(50) PRIMARY KEY,
+    position VARCHAR(64) NOT NULL, -- as sent by the stream, e.g. an ISO-8601 timestamp
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- =====================================================
@@ -156,18 +280,29 @@ CREATE INDEX idx_products_sku ON products(sku);
 CREATE INDEX idx_products_category ON products(category_id);
 CREATE INDEX idx_products_active ON products(is_active);
 CREATE INDEX idx_products_stock ON products(quantity_in_stock);
+CREATE INDEX idx_products_search ON products USING GIN (search_vector);
 
 CREATE INDEX idx_orders_customer ON orders(customer_id);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_number ON orders(order_number);
 CREATE INDEX idx_orders_created ON orders(created_at);
+CREATE INDEX idx_orders_updated ON orders(updated_at);
+CREATE INDEX idx_orders_delivered ON orders(delivered_at) WHERE status = 'DELIVERED';
 
 CREATE INDEX idx_order_items_order ON order_items(order_id);
 CREATE INDEX idx_order_items_product ON order_items(product_id);
 
-CREATE INDEX idx_inventory_trans_product ON inventory_transactions(product_id);
 CREATE INDEX idx_inventory_trans_type ON inventory_transactions(transaction_type);
 
+CREATE INDEX idx_daily_product_sales_product ON daily_product_sales(product_id, sales_date);
+
+-- Keyset pagination indexes (ORDER BY created_at DESC, id DESC)
+CREATE INDEX idx_orders_created_id ON orders(created_at DESC, id DESC);
+CREATE INDEX idx_orders_status_created_id ON orders(status, created_at DESC, id DESC);
+CREATE INDEX idx_products_active_created_id ON products(created_at DESC, id DESC) WHERE is_active = TRUE;
+CREATE INDEX idx_inventory_trans_created_id ON inventory_transactions(created_at DESC, id DESC);
+CREATE INDEX idx_inventory_trans_product_created_id ON inventory_transactions(product_id, created_at DESC, id DESC);
+
 -- =====================================================
 -- FUNCTIONS & TRIGGERS
 -- =====================================================
@@ -206,48 +341,9 @@ BEGIN
 END;
 $$ language 'plpgsql';
 
--- Function to update product stock when order item is created
-CREATE OR REPLACE FUNCTION update_stock_on_order()
-RETURNS TRIGGER AS $$
-BEGIN
-    -- Reduce stock when order item is created
-    UPDATE products 
-    SET quantity_in_stock = quantity_in_stock - NEW.quantity
-    WHERE id = NEW.product_id;
-    
-    -- Log the transaction
-    INSERT INTO inventory_transactions (product_id, transaction_type, quantity, reference_id, notes)
-    VALUES (NEW.product_id, 'SALE', -NEW.quantity, NEW.order_id, 'Order placed');
-    
-    RETURN NEW;
-END;
-$$ language 'plpgsql';
-
-CREATE TRIGGER trigger_update_stock
-    AFTER INSERT ON order_items
-    FOR EACH ROW
-    EXECUTE FUNCTION update_stock_on_order();
-
--- Function to calculate order total
-CREATE OR REPLACE FUNCTION update_order_total()
-RETURNS TRIGGER AS $$
-BEGIN
-    UPDATE orders
-    SET total_amount = (
-        SELECT COALESCE(SUM(total_price), 0)
-        FROM order_items
-        WHERE order_id = NEW.order_id
-    )
-    WHERE id = NEW.order_id;
-    
-    RETURN NEW;
-END;
-$$ language 'plpgsql';
-
-CREATE TRIGGER trigger_update_order_total
-    AFTER INSERT OR UPDATE OR DELETE ON order_items
-    FOR EACH ROW
-    EXECUTE FUNCTION update_order_total();
+-- Order stock, ledger and totals are owned by the application (OrderService): stock is
+-- reserved with one batch of guarded updates, the total is computed once per order and
+-- ledger rows are batch-inserted, instead of per-row triggers on order_items.
 
 -- =====================================================
 -- VIEWS
@@ -142,11 +142,8 @@ INSERT INTO orders (order_number, customer_id, status, total_amount, shipping_ad
 ('ORD-20241205-000005', 9, 'PENDING', 1549.98, 'Buyer Road 42', 'Odense', '5000', 'Denmark', '+45 89012345', 'Urgent delivery needed', NULL, '2024-12-05 11:00:00');
 
 -- =====================================================
--- ORDER ITEMS (disable trigger temporarily for seed data)
+-- ORDER ITEMS
 -- =====================================================
-ALTER TABLE order_items DISABLE TRIGGER trigger_update_stock;
-ALTER TABLE order_items DISABLE TRIGGER trigger_update_order_total;
-
 INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price) VALUES
 -- Order 1
 (1, 1, 1, 299.99, 299.99),  -- Headphones
@@ -169,9 +166,6 @@ INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price
 (5, 20, 1, 1299.99, 1299.99), -- Camping Tent
 (5, 11, 1, 249.99, 249.99);   -- LED Lamp
 
-ALTER TABLE order_items ENABLE TRIGGER trigger_update_stock;
-ALTER TABLE order_items ENABLE TRIGGER trigger_update_order_total;
-
 -- =====================================================
 -- SAMPLE INVENTORY TRANSACTIONS
 -- =====================================================
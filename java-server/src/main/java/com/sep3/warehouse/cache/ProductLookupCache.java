@@ -0,0 +1,210 @@
+package com.sep3.warehouse.cache;
+
+import com.sep3.warehouse.dto.product.ProductDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache for scanner lookups of products by SKU and barcode.
+ *
+ * Entries are evicted least-recently-used once max-entries is reached and expire
+ * after ttl-seconds as a safety net for writes that bypass the application.
+ * Every service method that changes a product must call {@link #invalidate(Long)};
+ * the entry is dropped immediately and again after the surrounding transaction
+ * commits, so readers never repopulate it with the pre-commit row.
+ *
+ * Hit, miss and eviction counts are published as cache.gets / cache.evictions
+ * with tag cache=productLookup.
+ */
+@Component
+@Slf4j
+public class ProductLookupCache {
+    
+    private static final String CACHE_NAME = "productLookup";
+    private static final String SKU_KEY = "sku:";
+    private static final String BARCODE_KEY = "barcode:";
+    
+    private final int maxEntries;
+    private final long ttlNanos;
+    
+    // Guarded by this
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<Long, Set<String>> keysByProduct = new HashMap<>();
+    private long invalidationSeq;
+    // Invalidation sequence at which each in-flight load started, and how many started there
+    private final TreeMap<Long, Integer> loadsInFlight = new TreeMap<>();
+    // Latest invalidation of each product while loads were in flight; pruned as they finish
+    private final Map<Long, Long> invalidatedAt = new HashMap<>();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public ProductLookupCache(@Value("${warehouse.product-cache.max-entries:10000}") int maxEntries,
+                              @Value("${warehouse.product-cache.ttl-seconds:300}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= ProductLookupCache.this.maxEntries) {
+                    return false;
+                }
+                unindex(eldest.getKey(), eldest.getValue().product().getId());
+                evictions.increment();
+                return true;
+            }
+        };
+        
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, ProductLookupCache::size)
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Get a product by SKU, loading it with the given loader on a miss.
+     */
+    public ProductDTO getBySku(String sku, Supplier<ProductDTO> loader) {
+        return get(SKU_KEY + sku, loader);
+    }
+    
+    /**
+     * Get a product by barcode, loading it with the given loader on a miss.
+     */
+    public ProductDTO getByBarcode(String barcode, Supplier<ProductDTO> loader) {
+        return get(BARCODE_KEY + barcode, loader);
+    }
+    
+    /**
+     * Drop all cached lookups for a product, now and after the current transaction commits.
+     */
+    public void invalidate(Long productId) {
+        evict(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(productId);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Drop all cached lookups for several products.
+     */
+    public void invalidateAll(Collection<Long> productIds) {
+        productIds.forEach(this::invalidate);
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    private ProductDTO get(String key, Supplier<ProductDTO> loader) {
+        long startedAt;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos) {
+                hits.increment();
+                return entry.product();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                unindex(key, entry.product().getId());
+            }
+            startedAt = invalidationSeq;
+            loadsInFlight.merge(startedAt, 1, Integer::sum);
+        }
+        misses.increment();
+        
+        // Load outside the lock; throws (e.g. not found) propagate and nothing is cached
+        ProductDTO product = null;
+        try {
+            product = loader.get();
+            return product;
+        } finally {
+            complete(product, startedAt);
+        }
+    }
+    
+    private synchronized void complete(ProductDTO product, long startedAt) {
+        loadsInFlight.computeIfPresent(startedAt, (seq, count) -> count > 1 ? count - 1 : null);
+        boolean stale = product != null && product.getId() != null
+                && invalidatedAt.getOrDefault(product.getId(), Long.MIN_VALUE) > startedAt;
+        if (loadsInFlight.isEmpty()) {
+            invalidatedAt.clear();
+        } else {
+            long oldest = loadsInFlight.firstKey();
+            invalidatedAt.values().removeIf(seq -> seq <= oldest);
+        }
+        
+        // Skip the fill if this product was invalidated while loading: the row may be stale
+        if (product == null || product.getId() == null || stale) {
+            return;
+        }
+        Entry entry = new Entry(product, System.nanoTime());
+        store(SKU_KEY + product.getSku(), entry);
+        if (product.getBarcode() != null && !product.getBarcode().isBlank()) {
+            store(BARCODE_KEY + product.getBarcode(), entry);
+        }
+    }
+    
+    private void store(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null && !previous.product().getId().equals(entry.product().getId())) {
+            unindex(key, previous.product().getId());
+        }
+        keysByProduct.computeIfAbsent(entry.product().getId(), id -> new HashSet<>()).add(key);
+    }
+    
+    private synchronized void evict(Long productId) {
+        invalidationSeq++;
+        if (!loadsInFlight.isEmpty()) {
+            invalidatedAt.put(productId, invalidationSeq);
+        }
+        Set<String> keys = keysByProduct.remove(productId);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+            log.debug("Evicted {} lookup entries for product {}", keys.size(), productId);
+        }
+    }
+    
+    private void unindex(String key, Long productId) {
+        Set<String> keys = keysByProduct.get(productId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByProduct.remove(productId);
+            }
+        }
+    }
+    
+    private record Entry(ProductDTO product, long loadedAt) {
+    }
+}
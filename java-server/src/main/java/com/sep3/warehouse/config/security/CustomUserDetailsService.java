@@ -29,13 +29,7 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
         
         String passwordHash = user.getPasswordHash();
-        
-        // Debug logging to verify hash from database
         log.debug("Loading user: {}", username);
-        log.debug("Password hash length: {}", passwordHash != null ? passwordHash.length() : "null");
-        log.debug("Password hash (first 30 chars): {}", passwordHash != null && passwordHash.length() >= 30 ? passwordHash.substring(0, 30) : passwordHash);
-        log.debug("Password hash (full): [{}]", passwordHash);
-        log.debug("Is active: {}", user.getIsActive());
         
         // Trim the hash in case there are leading/trailing spaces
         if (passwordHash != null) {
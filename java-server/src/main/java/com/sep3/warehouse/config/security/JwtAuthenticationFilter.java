@@ -1,12 +1,15 @@
 package com.sep3.warehouse.config.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,9 +18,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * JWT Authentication filter for processing JWT tokens.
+ * 
+ * With jwt.stateless-auth (default) the principal is built from the token claims;
+ * otherwise the user is loaded through the UserDetailsService on every request.
  */
 @Component
 @RequiredArgsConstructor
@@ -26,6 +33,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+    
+    @Value("${jwt.stateless-auth:true}")
+    private boolean statelessAuth;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -33,24 +44,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
+            Claims claims = StringUtils.hasText(jwt)
+                    ? jwtTokenProvider.parseValidatedClaims(jwt).orElse(null)
+                    : null;
             
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (claims != null) {
+                UsernamePasswordAuthenticationToken authentication = statelessAuth
+                        ? authenticateFromClaims(claims)
+                        : authenticateFromDatabase(claims.getSubject());
                 
-                log.debug("Set authentication for user: {}", username);
+                if (authentication != null) {
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    log.debug("Set authentication for user: {}", claims.getSubject());
+                }
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
@@ -59,6 +66,43 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * Build the principal from the token's userId and role claims.
+     * Only the cached active/role check may touch the database, at most once per TTL per user.
+     */
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Claims claims) {
+        Long userId = claims.get("userId", Long.class);
+        String role = claims.get("role", String.class);
+        if (userId == null || role == null) {
+            // Token issued without the claims we need: fall back to a full lookup
+            return authenticateFromDatabase(claims.getSubject());
+        }
+        
+        if (!userStatusCache.isActiveWithRole(userId, role)) {
+            log.debug("Rejected token for inactive or changed user: {}", claims.getSubject());
+            return null;
+        }
+        
+        JwtUserPrincipal principal = new JwtUserPrincipal(userId, claims.getSubject(), role);
+        return new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role))
+        );
+    }
+    
+    /**
+     * Load the user from the database on every request.
+     */
+    private UsernamePasswordAuthenticationToken authenticateFromDatabase(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
+    
     /**
      * Extract JWT from Authorization header.
      */
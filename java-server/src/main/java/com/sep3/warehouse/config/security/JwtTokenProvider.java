@@ -5,27 +5,54 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * JWT Token provider for authentication.
+ * 
+ * The signing key and parser are built once. Verified claims of recently seen
+ * tokens are kept in a small LRU keyed by the token's SHA-256 digest, so a hot
+ * token is decoded and HMAC-verified only once until it expires or is evicted.
  */
 @Component
 @Slf4j
 public class JwtTokenProvider {
     
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final Map<String, Claims> verifiedTokens;
     
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
-    
-    @Value("${jwt.refresh-expiration}")
-    private long refreshExpiration;
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.expiration}") long jwtExpiration,
+                            @Value("${jwt.refresh-expiration}") long refreshExpiration,
+                            @Value("${jwt.verified-cache-size:1024}") int verifiedCacheSize) {
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                        return size() > verifiedCacheSize;
+                    }
+                })
+                : null;
+    }
     
     /**
      * Generate access token for user.
@@ -55,58 +82,71 @@ public class JwtTokenProvider {
                 .claim("role", user.getRole().getName())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
+    /**
+     * Verify a token once and return its claims, or empty if the token is invalid or expired.
+     */
+    public Optional<Claims> parseValidatedClaims(String token) {
+        if (token == null || token.isBlank()) {
+            log.error("JWT claims string is empty");
+            return Optional.empty();
+        }
+        
+        String digest = verifiedTokens != null ? digest(token) : null;
+        if (digest != null) {
+            Claims cached = verifiedTokens.get(digest);
+            if (cached != null) {
+                if (cached.getExpiration() != null && cached.getExpiration().after(new Date())) {
+                    return Optional.of(cached);
+                }
+                verifiedTokens.remove(digest);
+                log.error("Expired JWT token");
+                return Optional.empty();
+            }
+        }
+        
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            if (digest != null) {
+                verifiedTokens.put(digest, claims);
+            }
+            return Optional.of(claims);
+        } catch (io.jsonwebtoken.security.SecurityException ex) {
+            log.error("Invalid JWT signature");
+        } catch (MalformedJwtException ex) {
+            log.error("Invalid JWT token");
+        } catch (ExpiredJwtException ex) {
+            log.error("Expired JWT token");
+        } catch (UnsupportedJwtException ex) {
+            log.error("Unsupported JWT token");
+        } catch (IllegalArgumentException ex) {
+            log.error("JWT claims string is empty");
+        }
+        return Optional.empty();
+    }
+    
     /**
      * Get username from token.
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.getSubject();
+        return parseClaims(token).getSubject();
     }
     
     /**
      * Get user ID from token.
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.get("userId", Long.class);
+        return parseClaims(token).get("userId", Long.class);
     }
     
     /**
      * Validate JWT token.
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token");
-        } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
-        }
-        return false;
+        return parseValidatedClaims(token).isPresent();
     }
     
     /**
@@ -117,10 +157,21 @@ public class JwtTokenProvider {
     }
     
     /**
-     * Get signing key for JWT.
+     * Parse claims, throwing the underlying JWT exception if the token is invalid.
+     */
+    private Claims parseClaims(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+    
+    /**
+     * SHA-256 digest of a token, used as cache key so raw tokens are not kept in memory.
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
     }
 }
@@ -0,0 +1,14 @@
+package com.sep3.warehouse.config.security;
+
+import java.security.Principal;
+
+/**
+ * Authenticated user built from verified JWT claims (stateless authentication).
+ */
+public record JwtUserPrincipal(Long userId, String username, String role) implements Principal {
+    
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,5 +1,6 @@
 package com.sep3.warehouse.config.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,10 +43,14 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Completion of async (CompletableFuture) handlers; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        
                         // Public endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
-                        .requestMatchers("/actuator/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "SUPERVISOR")
                         
                         // Products - read access for all authenticated users
                         .requestMatchers(HttpMethod.GET, "/api/products/**").authenticated()
@@ -62,6 +67,9 @@ public class SecurityConfig {
                         // Shipments
                         .requestMatchers("/api/shipments/**").hasAnyRole("ADMIN", "SUPERVISOR", "WAREHOUSE_OPERATOR")
                         
+                        // Inventory transactions
+                        .requestMatchers("/api/inventory-transactions/**").hasAnyRole("ADMIN", "SUPERVISOR", "WAREHOUSE_OPERATOR")
+                        
                         // Users management - admin only
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
                         
@@ -0,0 +1,66 @@
+package com.sep3.warehouse.config.security;
+
+import com.sep3.warehouse.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of each user's active flag and role for stateless authentication.
+ * 
+ * A user is looked up at most once per TTL, so a deactivated account or changed
+ * role is rejected within ttl-seconds even though its token is still valid.
+ * Changes made through this server are evicted immediately.
+ */
+@Component
+@Slf4j
+public class UserStatusCache {
+    
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${jwt.user-status-ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+    
+    /**
+     * Check that the user still exists, is active and still has the given role.
+     */
+    public boolean isActiveWithRole(Long userId, String role) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry == null || now - entry.loadedAt() >= ttlNanos) {
+            entry = userRepository.findStatusById(userId)
+                    .map(status -> new Entry(Boolean.TRUE.equals(status.getActive()), status.getRoleName(), now))
+                    .orElseGet(() -> new Entry(false, null, now));
+            entries.put(userId, entry);
+        }
+        return entry.active() && role.equals(entry.roleName());
+    }
+    
+    /**
+     * Forget a user's cached status, now and after the current transaction commits.
+     */
+    public void evict(Long userId) {
+        entries.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(userId);
+                }
+            });
+        }
+        log.debug("Evicted cached status for user {}", userId);
+    }
+    
+    private record Entry(boolean active, String roleName, long loadedAt) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.sep3.warehouse.controller;
+
+import com.sep3.warehouse.entity.OrderStatus;
+import com.sep3.warehouse.entity.TransactionType;
+import com.sep3.warehouse.export.ExportFormat;
+import com.sep3.warehouse.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST Controller for bulk exports. Responses are streamed from a database
+ * cursor, optionally gzip-compressed, so exports of any size use constant memory.
+ */
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Exports", description = "Streaming CSV/NDJSON export endpoints")
+@PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+public class ExportController {
+    
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    
+    private final ExportService exportService;
+    
+    @GetMapping("/orders")
+    @Operation(summary = "Export orders", description = "Stream all orders matching the filters as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "true") boolean gzip) {
+        log.debug("GET /api/exports/orders - status: {}, from: {}, to: {}, format: {}", status, from, to, format);
+        return stream("orders", format, gzip,
+                out -> exportService.exportOrders(status, from, to, format, out));
+    }
+    
+    @GetMapping("/order-items")
+    @Operation(summary = "Export order items", description = "Stream the items of all orders matching the filters as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportOrderItems(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "true") boolean gzip) {
+        log.debug("GET /api/exports/order-items - productId: {}, from: {}, to: {}, format: {}", productId, from, to, format);
+        return stream("order-items", format, gzip,
+                out -> exportService.exportOrderItems(productId, from, to, format, out));
+    }
+    
+    @GetMapping("/inventory-transactions")
+    @Operation(summary = "Export inventory transactions", description = "Stream the stock movement history matching the filters as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportInventoryTransactions(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "true") boolean gzip) {
+        log.debug("GET /api/exports/inventory-transactions - productId: {}, type: {}, from: {}, to: {}, format: {}",
+                productId, type, from, to, format);
+        return stream("inventory-transactions", format, gzip,
+                out -> exportService.exportInventoryTransactions(productId, type, from, to, format, out));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, boolean gzip,
+                                                         StreamingResponseBody body) {
+        String filename = name + "-" + LocalDate.now() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody response = gzip
+                ? out -> {
+                    try (OutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE)) {
+                        body.writeTo(compressed);
+                    }
+                }
+                : body;
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(response);
+    }
+}
@@ -0,0 +1,87 @@
+package com.sep3.warehouse.controller;
+
+import com.sep3.warehouse.dto.common.CursorPage;
+import com.sep3.warehouse.dto.inventory.InventoryMovementSummaryDTO;
+import com.sep3.warehouse.dto.inventory.InventoryTransactionDTO;
+import com.sep3.warehouse.dto.inventory.MovementGrouping;
+import com.sep3.warehouse.dto.inventory.StockAsOfDTO;
+import com.sep3.warehouse.exception.BadRequestException;
+import com.sep3.warehouse.service.InventoryTransactionService;
+import com.sep3.warehouse.service.StockHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REST Controller for the inventory transaction history.
+ */
+@RestController
+@RequestMapping("/api/inventory-transactions")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Inventory Transactions", description = "Stock movement history endpoints")
+@PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR', 'WAREHOUSE_OPERATOR')")
+public class InventoryTransactionController {
+    
+    private final InventoryTransactionService inventoryTransactionService;
+    private final StockHistoryService stockHistoryService;
+    
+    @GetMapping("/product/{productId}")
+    @Operation(summary = "Get transactions by product", description = "Retrieve stock movements for a product with pagination")
+    public ResponseEntity<Page<InventoryTransactionDTO>> getTransactionsByProduct(
+            @PathVariable Long productId,
+            @PageableDefault(size = 20) Pageable pageable) {
+        log.debug("GET /api/inventory-transactions/product/{}", productId);
+        return ResponseEntity.ok(inventoryTransactionService.getTransactionsByProduct(productId, pageable));
+    }
+    
+    @GetMapping("/cursor")
+    @Operation(summary = "Get transactions by cursor", description = "Retrieve stock movements newest first using keyset pagination")
+    public ResponseEntity<CursorPage<InventoryTransactionDTO>> getTransactionsAfter(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        log.debug("GET /api/inventory-transactions/cursor - productId: {}", productId);
+        return ResponseEntity.ok(inventoryTransactionService.getTransactionsAfter(productId, after, size));
+    }
+    
+    @GetMapping("/summary")
+    @Operation(summary = "Get movement summary", description = "Stock movement totals per product or per transaction type for a date range")
+    public ResponseEntity<List<InventoryMovementSummaryDTO>> getMovementSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "PRODUCT") MovementGrouping groupBy) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        log.debug("GET /api/inventory-transactions/summary - from: {}, to: {}, groupBy: {}", start, end, groupBy);
+        return ResponseEntity.ok(inventoryTransactionService.getMovementSummary(
+                start.atStartOfDay(), end.plusDays(1).atStartOfDay(), groupBy));
+    }
+    
+    @GetMapping("/stock-as-of")
+    @Operation(summary = "Get stock as of a time", description = "Reconstruct a product's stock at a point in time from the nearest snapshot and the ledger")
+    public ResponseEntity<StockAsOfDTO> getStockAsOf(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String sku,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        log.debug("GET /api/inventory-transactions/stock-as-of - productId: {}, sku: {}, asOf: {}", productId, sku, asOf);
+        if (productId != null) {
+            return ResponseEntity.ok(stockHistoryService.getStockAsOf(productId, asOf));
+        }
+        if (sku != null) {
+            return ResponseEntity.ok(stockHistoryService.getStockAsOfBySku(sku, asOf));
+        }
+        throw new BadRequestException("Either productId or sku is required");
+    }
+}
@@ -1,7 +1,9 @@
 package com.sep3.warehouse.controller;
 
+import com.sep3.warehouse.dto.common.CursorPage;
 import com.sep3.warehouse.dto.order.CreateOrderRequest;
 import com.sep3.warehouse.dto.order.OrderDTO;
+import com.sep3.warehouse.dto.order.OrderSummaryDTO;
 import com.sep3.warehouse.dto.order.UpdateOrderStatusRequest;
 import com.sep3.warehouse.entity.OrderStatus;
 import com.sep3.warehouse.service.OrderService;
@@ -39,6 +41,35 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders(pageable));
     }
     
+    @GetMapping("/summary")
+    @Operation(summary = "Get order summaries", description = "Retrieve lightweight order rows for list views")
+    public ResponseEntity<Page<OrderSummaryDTO>> getOrderSummaries(
+            @RequestParam(required = false) OrderStatus status,
+            @PageableDefault(size = 20) Pageable pageable) {
+        log.debug("GET /api/orders/summary - status: {}", status);
+        return ResponseEntity.ok(orderService.getOrderSummaries(status, pageable));
+    }
+    
+    @GetMapping("/cursor")
+    @Operation(summary = "Get orders by cursor", description = "Retrieve orders newest first using keyset pagination")
+    public ResponseEntity<CursorPage<OrderDTO>> getOrdersAfter(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        log.debug("GET /api/orders/cursor - status: {}", status);
+        return ResponseEntity.ok(orderService.getOrdersAfter(status, after, size));
+    }
+    
+    @GetMapping("/summary/cursor")
+    @Operation(summary = "Get order summaries by cursor", description = "Retrieve lightweight order rows using keyset pagination")
+    public ResponseEntity<CursorPage<OrderSummaryDTO>> getOrderSummariesAfter(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        log.debug("GET /api/orders/summary/cursor - status: {}", status);
+        return ResponseEntity.ok(orderService.getOrderSummariesAfter(status, after, size));
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get order by ID", description = "Retrieve a specific order by its ID")
     public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
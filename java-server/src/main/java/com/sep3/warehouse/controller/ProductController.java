@@ -1,8 +1,13 @@
 package com.sep3.warehouse.controller;
 
+import com.sep3.warehouse.dto.common.CursorPage;
 import com.sep3.warehouse.dto.product.CreateProductRequest;
+import com.sep3.warehouse.dto.product.ProductImportResult;
+import com.sep3.warehouse.dto.product.StockAdjustmentRequest;
+import com.sep3.warehouse.dto.product.StockAdjustmentResult;
 import com.sep3.warehouse.dto.product.ProductDTO;
 import com.sep3.warehouse.dto.product.UpdateProductRequest;
+import com.sep3.warehouse.service.ProductImportService;
 import com.sep3.warehouse.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,10 +17,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -29,6 +37,7 @@ import java.util.List;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductImportService productImportService;
     
     @GetMapping
     @Operation(summary = "Get all products", description = "Retrieve all active products with pagination")
@@ -38,6 +47,15 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(pageable));
     }
     
+    @GetMapping("/cursor")
+    @Operation(summary = "Get products by cursor", description = "Retrieve active products newest first using keyset pagination")
+    public ResponseEntity<CursorPage<ProductDTO>> getProductsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        log.debug("GET /api/products/cursor");
+        return ResponseEntity.ok(productService.getProductsAfter(after, size));
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID", description = "Retrieve a specific product by its ID")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
@@ -52,6 +70,13 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductBySku(sku));
     }
     
+    @GetMapping("/barcode/{barcode}")
+    @Operation(summary = "Get product by barcode", description = "Retrieve a product by its barcode (scanner lookup)")
+    public ResponseEntity<ProductDTO> getProductByBarcode(@PathVariable String barcode) {
+        log.debug("GET /api/products/barcode/{}", barcode);
+        return ResponseEntity.ok(productService.getProductByBarcode(barcode));
+    }
+    
     @GetMapping("/search")
     @Operation(summary = "Search products", description = "Search products by name, SKU, or description")
     public ResponseEntity<Page<ProductDTO>> searchProducts(
@@ -87,14 +112,25 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/json"})
+    @Operation(summary = "Import products", description = "Bulk insert or update products by SKU from a streamed CSV or JSON file")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+    public ResponseEntity<ProductImportResult> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        log.info("POST /api/products/import - content type: {}", contentType);
+        return ResponseEntity.ok(productImportService.importProducts(contentType, body));
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update product", description = "Update an existing product")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR', 'WAREHOUSE_OPERATOR')")
     public ResponseEntity<ProductDTO> updateProduct(
             @PathVariable Long id,
-            @Valid @RequestBody UpdateProductRequest request) {
+            @Valid @RequestBody UpdateProductRequest request,
+            Authentication authentication) {
         log.info("PUT /api/products/{}", id);
-        return ResponseEntity.ok(productService.updateProduct(id, request));
+        return ResponseEntity.ok(productService.updateProduct(id, request, authentication.getName()));
     }
     
     @PatchMapping("/{id}/stock")
@@ -102,9 +138,40 @@ public class ProductController {
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR', 'WAREHOUSE_OPERATOR')")
     public ResponseEntity<ProductDTO> updateStock(
             @PathVariable Long id,
-            @RequestParam int quantityChange) {
+            @RequestParam int quantityChange,
+            Authentication authentication) {
         log.info("PATCH /api/products/{}/stock - change: {}", id, quantityChange);
-        return ResponseEntity.ok(productService.updateStock(id, quantityChange));
+        return ResponseEntity.ok(productService.updateStock(id, quantityChange, authentication.getName()));
+    }
+    
+    @PostMapping("/stock-adjustments")
+    @Operation(summary = "Adjust stock in bulk", description = "Apply many stock changes in one transaction, all or nothing")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+    public ResponseEntity<StockAdjustmentResult> adjustStock(
+            @Valid @RequestBody StockAdjustmentRequest request,
+            Authentication authentication) {
+        log.info("POST /api/products/stock-adjustments - {} lines", request.getAdjustments().size());
+        return ResponseEntity.ok(productService.adjustStock(request, authentication.getName()));
+    }
+    
+    @PutMapping("/{id}/hot-stock")
+    @Operation(summary = "Enable hot stock reservations", description = "Reserve the product's stock from in-memory counters leased in blocks, for flash sales")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+    public ResponseEntity<Void> enableHotStock(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "50") int blockSize) {
+        log.info("PUT /api/products/{}/hot-stock - block size: {}", id, blockSize);
+        productService.enableHotStock(id, blockSize);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping("/{id}/hot-stock")
+    @Operation(summary = "Disable hot stock reservations", description = "Reserve the product's stock on its row again and return leased units")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+    public ResponseEntity<Void> disableHotStock(@PathVariable Long id) {
+        log.info("DELETE /api/products/{}/hot-stock", id);
+        productService.disableHotStock(id);
+        return ResponseEntity.noContent().build();
     }
     
     @DeleteMapping("/{id}")
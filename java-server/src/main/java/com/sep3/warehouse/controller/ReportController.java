@@ -0,0 +1,62 @@
+package com.sep3.warehouse.controller;
+
+import com.sep3.warehouse.dto.report.CategoryInventorySnapshotDTO;
+import com.sep3.warehouse.dto.report.DashboardDTO;
+import com.sep3.warehouse.dto.report.SalesReportDTO;
+import com.sep3.warehouse.service.ReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for reports and dashboard KPIs.
+ */
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Reports", description = "Reporting and analytics endpoints")
+@PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+public class ReportController {
+    
+    private final ReportService reportService;
+    
+    @GetMapping("/dashboard")
+    @Operation(summary = "Get dashboard", description = "Retrieve all dashboard KPIs aggregated on the server")
+    public ResponseEntity<DashboardDTO> getDashboard() {
+        log.debug("GET /api/reports/dashboard");
+        return ResponseEntity.ok(reportService.getDashboard());
+    }
+    
+    @GetMapping("/sales")
+    @Operation(summary = "Get sales report", description = "Delivered units and revenue per day and top products, from the daily sales rollup")
+    public ResponseEntity<SalesReportDTO> getSalesReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        log.debug("GET /api/reports/sales - from: {}, to: {}", start, end);
+        return ResponseEntity.ok(reportService.getSalesReport(start, end));
+    }
+    
+    @GetMapping("/inventory-history")
+    @Operation(summary = "Get inventory history", description = "Daily stock per category, from the inventory snapshot rollup")
+    public ResponseEntity<List<CategoryInventorySnapshotDTO>> getInventoryHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        log.debug("GET /api/reports/inventory-history - from: {}, to: {}", start, end);
+        return ResponseEntity.ok(reportService.getInventoryHistory(start, end));
+    }
+}
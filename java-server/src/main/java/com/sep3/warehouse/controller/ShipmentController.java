@@ -1,5 +1,6 @@
 package com.sep3.warehouse.controller;
 
+import com.sep3.warehouse.dto.shipment.DispatchWaveResult;
 import com.sep3.warehouse.dto.shipment.ShipmentDTO;
 import com.sep3.warehouse.service.ShipmentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,10 +12,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST Controller for shipment management.
  * This controller communicates with the C# Shipment microservice via gRPC.
+ * Handlers return futures, so servlet threads are released while the call is in flight.
  */
 @RestController
 @RequestMapping("/api/shipments")
@@ -28,53 +31,62 @@ public class ShipmentController {
     
     @GetMapping
     @Operation(summary = "Get all shipments", description = "Retrieve all shipments with optional filtering")
-    public ResponseEntity<List<ShipmentDTO>> getAllShipments(
+    public CompletableFuture<ResponseEntity<List<ShipmentDTO>>> getAllShipments(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String status) {
         log.debug("GET /api/shipments - page: {}, size: {}, status: {}", page, size, status);
-        return ResponseEntity.ok(shipmentService.getAllShipments(page, size, status));
+        return shipmentService.getAllShipments(page, size, status).thenApply(ResponseEntity::ok);
     }
     
     @GetMapping("/{id}")
     @Operation(summary = "Get shipment by ID", description = "Retrieve a specific shipment")
-    public ResponseEntity<ShipmentDTO> getShipment(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<ShipmentDTO>> getShipment(@PathVariable Long id) {
         log.debug("GET /api/shipments/{}", id);
-        return ResponseEntity.ok(shipmentService.getShipment(id));
+        return shipmentService.getShipment(id).thenApply(ResponseEntity::ok);
     }
     
     @GetMapping("/order/{orderId}")
     @Operation(summary = "Get shipment by order ID", description = "Retrieve shipment for a specific order")
-    public ResponseEntity<ShipmentDTO> getShipmentByOrderId(@PathVariable Long orderId) {
+    public CompletableFuture<ResponseEntity<ShipmentDTO>> getShipmentByOrderId(@PathVariable Long orderId) {
         log.debug("GET /api/shipments/order/{}", orderId);
-        return ResponseEntity.ok(shipmentService.getShipmentByOrderId(orderId));
+        return shipmentService.getShipmentByOrderId(orderId).thenApply(ResponseEntity::ok);
     }
     
     @PostMapping("/order/{orderId}")
     @Operation(summary = "Create shipment", description = "Create a shipment for an order")
-    public ResponseEntity<ShipmentDTO> createShipment(@PathVariable Long orderId) {
+    public CompletableFuture<ResponseEntity<ShipmentDTO>> createShipment(@PathVariable Long orderId) {
         log.info("POST /api/shipments/order/{} - Creating shipment", orderId);
-        ShipmentDTO created = shipmentService.createShipment(orderId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        return shipmentService.createShipment(orderId)
+                .thenApply(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+    
+    @PostMapping("/dispatch-wave")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERVISOR')")
+    @Operation(summary = "Dispatch wave", description = "Create shipments for ready orders in one batch and report per-order results")
+    public CompletableFuture<ResponseEntity<DispatchWaveResult>> dispatchWave(
+            @RequestParam(defaultValue = "500") int limit) {
+        log.info("POST /api/shipments/dispatch-wave - limit: {}", limit);
+        return shipmentService.dispatchWave(limit).thenApply(ResponseEntity::ok);
     }
     
     @PutMapping("/{id}/status")
     @Operation(summary = "Update shipment status", description = "Update the status of a shipment")
-    public ResponseEntity<ShipmentDTO> updateShipmentStatus(
+    public CompletableFuture<ResponseEntity<ShipmentDTO>> updateShipmentStatus(
             @PathVariable Long id,
             @RequestParam String status,
             @RequestParam(required = false) String location,
             @RequestParam(required = false) String notes) {
         log.info("PUT /api/shipments/{}/status - New status: {}", id, status);
-        return ResponseEntity.ok(shipmentService.updateShipmentStatus(id, status, location, notes));
+        return shipmentService.updateShipmentStatus(id, status, location, notes).thenApply(ResponseEntity::ok);
     }
     
     @DeleteMapping("/{id}")
     @Operation(summary = "Cancel shipment", description = "Cancel a shipment")
-    public ResponseEntity<ShipmentDTO> cancelShipment(
+    public CompletableFuture<ResponseEntity<ShipmentDTO>> cancelShipment(
             @PathVariable Long id,
             @RequestParam(required = false) String reason) {
         log.info("DELETE /api/shipments/{} - Cancelling shipment", id);
-        return ResponseEntity.ok(shipmentService.cancelShipment(id, reason));
+        return shipmentService.cancelShipment(id, reason).thenApply(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,58 @@
+package com.sep3.warehouse.dto.common;
+
+import com.sep3.warehouse.util.PageCursor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of results for keyset (cursor) pagination.
+ * Pass {@code nextCursor} as the {@code after} parameter to fetch the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+    
+    public static final int MAX_SIZE = 100;
+    
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    
+    /**
+     * Limit for a keyset query: one row more than requested, to detect a following page.
+     */
+    public static Pageable limitFor(int size) {
+        return PageRequest.of(0, clamp(size) + 1);
+    }
+    
+    /**
+     * Build a page from rows fetched with {@link #limitFor(int)}.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, PageCursor> cursorOf,
+                                          Function<E, T> mapper) {
+        int limit = clamp(size);
+        boolean hasNext = rows.size() > limit;
+        List<E> pageRows = hasNext ? rows.subList(0, limit) : rows;
+        
+        return CursorPage.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .size(limit)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(pageRows.get(limit - 1)).encode() : null)
+                .build();
+    }
+    
+    private static int clamp(int size) {
+        return Math.min(Math.max(size, 1), MAX_SIZE);
+    }
+}
@@ -0,0 +1,26 @@
+package com.sep3.warehouse.dto.inventory;
+
+import com.sep3.warehouse.entity.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for aggregated stock movements over a period, per product or per transaction type.
+ * Product fields are null when grouped by type, and the type is null when grouped by product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryMovementSummaryDTO {
+    private Long productId;
+    private String productSku;
+    private String productName;
+    private TransactionType transactionType;
+    private long transactions;
+    private long quantityIn;
+    private long quantityOut;
+    private long netQuantity;
+}
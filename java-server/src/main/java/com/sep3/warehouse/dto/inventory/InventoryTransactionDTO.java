@@ -0,0 +1,29 @@
+package com.sep3.warehouse.dto.inventory;
+
+import com.sep3.warehouse.entity.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for InventoryTransaction entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryTransactionDTO {
+    private Long id;
+    private Long productId;
+    private String productSku;
+    private String productName;
+    private TransactionType transactionType;
+    private Integer quantity;
+    private Long referenceId;
+    private String notes;
+    private Long performedById;
+    private String performedByName;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,9 @@
+package com.sep3.warehouse.dto.inventory;
+
+/**
+ * How stock movements are grouped in a movement summary.
+ */
+public enum MovementGrouping {
+    PRODUCT,
+    TYPE
+}
@@ -0,0 +1,23 @@
+package com.sep3.warehouse.dto.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a product's stock at a point in time, reconstructed from a snapshot and the ledger.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAsOfDTO {
+    private Long productId;
+    private String sku;
+    private LocalDateTime asOf;
+    private int quantity;
+    private LocalDateTime baselineAt;  // snapshot time, or null when derived from the current stock
+    private long replayedTransactions;
+}
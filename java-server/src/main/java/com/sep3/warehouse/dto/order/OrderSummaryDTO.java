@@ -0,0 +1,28 @@
+package com.sep3.warehouse.dto.order;
+
+import com.sep3.warehouse.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight DTO for order list views.
+ * Populated directly by a JPQL constructor projection (field order matters).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummaryDTO {
+    private Long id;
+    private String orderNumber;
+    private Long customerId;
+    private String customerName;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Long itemCount;
+    private LocalDateTime createdAt;
+}
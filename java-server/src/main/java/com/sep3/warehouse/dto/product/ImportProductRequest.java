@@ -0,0 +1,18 @@
+package com.sep3.warehouse.dto.product;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a bulk product import. The category may be given by id or by name.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ImportProductRequest extends CreateProductRequest {
+    
+    @Size(max = 100, message = "Category name must not exceed 100 characters")
+    private String categoryName;
+}
@@ -0,0 +1,33 @@
+package com.sep3.warehouse.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk product import, with the rows that were rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductImportResult {
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+    private long durationMs;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RowError {
+        private long row;
+        private String sku;
+        private String message;
+    }
+}
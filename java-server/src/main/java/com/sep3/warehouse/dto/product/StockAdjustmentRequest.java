@@ -0,0 +1,39 @@
+package com.sep3.warehouse.dto.product;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * DTO for adjusting the stock of many products at once (e.g. after a cycle count).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentRequest {
+    
+    @NotEmpty(message = "At least one adjustment is required")
+    @Size(max = 50000, message = "At most 50000 adjustments per request")
+    @Valid
+    private List<Line> adjustments;
+    
+    @Size(max = 500, message = "Notes must not exceed 500 characters")
+    private String notes;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+        
+        @NotNull(message = "Quantity change is required")
+        private Integer quantityChange;
+    }
+}
@@ -0,0 +1,29 @@
+package com.sep3.warehouse.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk stock adjustment, with the new stock per product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAdjustmentResult {
+    private int adjusted;
+    private List<ProductStock> products;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ProductStock {
+        private Long productId;
+        private String sku;
+        private Integer quantityInStock;
+    }
+}
@@ -0,0 +1,25 @@
+package com.sep3.warehouse.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for a category's stock on one day, from the inventory snapshot rollup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryInventorySnapshotDTO {
+    private LocalDate snapshotDate;
+    private Long categoryId;
+    private String categoryName;
+    private long productCount;
+    private long totalUnits;
+    private BigDecimal totalCostValue;
+    private BigDecimal totalRetailValue;
+}
@@ -0,0 +1,55 @@
+package com.sep3.warehouse.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the reports dashboard, with all KPIs aggregated on the server.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardDTO {
+    private long totalProducts;
+    private long inStockCount;
+    private long lowStockCount;
+    private long outOfStockCount;
+    private BigDecimal totalInventoryValue;
+    private long totalOrders;
+    private BigDecimal totalRevenue;
+    private Map<String, Long> ordersByStatus;
+    private List<CategoryStat> categories;
+    private List<ProductStat> topProductsByValue;
+    private List<ProductStat> topSellingProducts;
+    private LocalDateTime generatedAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CategoryStat {
+        private String category;
+        private long productCount;
+        private long totalUnits;
+        private BigDecimal totalValue;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ProductStat {
+        private Long productId;
+        private String sku;
+        private String name;
+        private long quantity;
+        private BigDecimal value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.sep3.warehouse.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for sales over a date range, served from the daily sales rollup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesReportDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private long totalUnits;
+    private BigDecimal totalRevenue;
+    private List<DailySales> daily;
+    private List<DashboardDTO.ProductStat> topProducts;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DailySales {
+        private LocalDate date;
+        private long units;
+        private BigDecimal revenue;
+    }
+}
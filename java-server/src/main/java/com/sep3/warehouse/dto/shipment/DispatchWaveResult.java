@@ -0,0 +1,34 @@
+package com.sep3.warehouse.dto.shipment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a dispatch wave, with one result per order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DispatchWaveResult {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<OrderResult> results;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class OrderResult {
+        private Long orderId;
+        private String orderNumber;
+        private boolean success;
+        private Long shipmentId;
+        private String trackingNumber;
+        private String error;
+    }
+}
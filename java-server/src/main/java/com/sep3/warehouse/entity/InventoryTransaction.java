@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 
 /**
  * InventoryTransaction entity for tracking all stock changes.
+ * Rows are written in batches by {@link com.sep3.warehouse.ledger.InventoryLedger}; JPA only reads them.
  */
 @Entity
 @Table(name = "inventory_transactions")
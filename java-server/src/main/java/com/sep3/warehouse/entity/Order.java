@@ -2,6 +2,7 @@ package com.sep3.warehouse.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,9 +10,20 @@ import java.util.List;
 
 /**
  * Order entity representing customer orders.
+ * The "Order.withUsers" graph fetches the referenced users together with the order
+ * so order listings don't trigger a lazy load per row.
  */
 @Entity
 @Table(name = "orders")
+@NamedEntityGraph(
+        name = "Order.withUsers",
+        attributeNodes = {
+                @NamedAttributeNode(value = "customer", subgraph = "user"),
+                @NamedAttributeNode(value = "processedBy", subgraph = "user"),
+                @NamedAttributeNode(value = "approvedBy", subgraph = "user")
+        },
+        subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role"))
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -64,8 +76,14 @@ public class Order {
     private User approvedBy;
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
+    @Builder.Default
     private List<OrderItem> orderItems = new ArrayList<>();
     
+    // Set while a dispatch wave creates this order's shipment; other waves skip the order until the claim expires
+    @Column(name = "dispatch_claimed_at")
+    private LocalDateTime dispatchClaimedAt;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
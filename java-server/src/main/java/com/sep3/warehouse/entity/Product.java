@@ -2,13 +2,19 @@ package com.sep3.warehouse.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
  * Product entity representing inventory items in the warehouse.
+ * 
+ * Stock is never written back from the entity: it only changes through the
+ * guarded delta updates in {@link com.sep3.warehouse.repository.ProductRepository},
+ * so an edit cannot overwrite reservations made since the product was loaded.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "products")
 @Getter
 @Setter
@@ -40,7 +46,7 @@ public class Product {
     @Column(name = "cost_price", precision = 10, scale = 2)
     private BigDecimal costPrice;
     
-    @Column(name = "quantity_in_stock", nullable = false)
+    @Column(name = "quantity_in_stock", nullable = false, updatable = false)
     private Integer quantityInStock;
     
     @Column(name = "minimum_stock_level")
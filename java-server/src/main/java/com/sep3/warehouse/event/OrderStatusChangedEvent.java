@@ -0,0 +1,20 @@
+package com.sep3.warehouse.event;
+
+import com.sep3.warehouse.entity.OrderStatus;
+import java.math.BigDecimal;
+
+/**
+ * Published when orders move between statuses. A null {@code from} means the
+ * orders were just created. {@code totalAmount} is the summed order total of the
+ * moved orders and only needs to be set when DELIVERED is the source or target.
+ */
+public record OrderStatusChangedEvent(OrderStatus from, OrderStatus to, long count, BigDecimal totalAmount) {
+    
+    public static OrderStatusChangedEvent created(BigDecimal totalAmount) {
+        return new OrderStatusChangedEvent(null, OrderStatus.PENDING, 1, totalAmount);
+    }
+    
+    public static OrderStatusChangedEvent single(OrderStatus from, OrderStatus to, BigDecimal totalAmount) {
+        return new OrderStatusChangedEvent(from, to, 1, totalAmount);
+    }
+}
@@ -0,0 +1,14 @@
+package com.sep3.warehouse.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when products are created, edited, deactivated or change stock.
+ */
+public record ProductsChangedEvent(Collection<Long> productIds) {
+    
+    public static ProductsChangedEvent of(Long productId) {
+        return new ProductsChangedEvent(List.of(productId));
+    }
+}
@@ -0,0 +1,174 @@
+package com.sep3.warehouse.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Writes JDBC result rows straight to an output stream as CSV or NDJSON.
+ * 
+ * Column names are taken from the result set labels. Only the current row is
+ * held in memory, so exports of any size run in constant heap.
+ */
+public class ExportRowWriter implements AutoCloseable {
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private final ExportFormat format;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private String[] columns;
+    private long rowCount;
+    
+    public ExportRowWriter(ExportFormat format, OutputStream out) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.json = format == ExportFormat.NDJSON ? JSON_FACTORY.createGenerator(writer) : null;
+        if (json != null) {
+            json.setRootValueSeparator(null);
+        }
+    }
+    
+    /**
+     * Write the current row of the result set (and the CSV header before the first row).
+     */
+    public void write(ResultSet rs) throws SQLException, IOException {
+        if (columns == null) {
+            columns = columnLabels(rs.getMetaData());
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(columns);
+            }
+        }
+        if (format == ExportFormat.CSV) {
+            String[] values = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = toText(rs.getObject(i + 1));
+            }
+            writeCsvLine(values);
+        } else {
+            writeJsonLine(rs);
+        }
+        rowCount++;
+    }
+    
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.close();
+    }
+    
+    private void writeCsvLine(String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(values[i]);
+        }
+        writer.write("\r\n");
+    }
+    
+    private void writeCsvValue(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        // A leading quote keeps spreadsheets from evaluating text such as notes or addresses as a formula
+        if (isFormula(value)) {
+            value = "'" + value;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+    
+    private void writeJsonLine(ResultSet rs) throws SQLException, IOException {
+        json.writeStartObject();
+        for (int i = 0; i < columns.length; i++) {
+            Object value = rs.getObject(i + 1);
+            json.writeFieldName(columns[i]);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof BigDecimal decimal) {
+                json.writeNumber(decimal);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                json.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Boolean bool) {
+                json.writeBoolean(bool);
+            } else {
+                json.writeString(toText(value));
+            }
+        }
+        json.writeEndObject();
+        json.flush();
+        writer.write('\n');
+    }
+    
+    /**
+     * Whether a spreadsheet would read the value as a formula. Negative numbers are
+     * left alone so numeric columns still import as numbers.
+     */
+    static boolean isFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '@' || first == '\t' || first == '\r') {
+            return true;
+        }
+        return first == '-' && !isNumber(value);
+    }
+    
+    private static boolean isNumber(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    private static String toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+    
+    private static String[] columnLabels(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+}
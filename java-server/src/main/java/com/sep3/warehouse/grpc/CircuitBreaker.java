@@ -0,0 +1,157 @@
+package com.sep3.warehouse.grpc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import java.util.Locale;
+
+/**
+ * Count-based circuit breaker for calls to a downstream service.
+ * 
+ * Outcomes of the last window-size calls are kept in a ring buffer. Once at least
+ * minimum-calls have been seen and the failure rate reaches the threshold, the
+ * breaker opens and rejects calls for open-duration. It then lets half-open-calls
+ * trial calls through: all must succeed to close it, any failure opens it again.
+ * 
+ * State is published as circuitbreaker.state (one gauge per state, 1 for the
+ * current one) and outcomes as circuitbreaker.calls, tagged with the breaker name.
+ */
+@Slf4j
+final class CircuitBreaker {
+    
+    enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    
+    // Guarded by this
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSucceeded;
+    
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+    
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRatePercent,
+                   long openDurationMs, int halfOpenCalls, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRatePercent / 100.0;
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        
+        for (State s : State.values()) {
+            Gauge.builder("circuitbreaker.state", this, breaker -> breaker.getState() == s ? 1 : 0)
+                    .tag("name", name).tag("state", s.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        successfulCalls = Counter.builder("circuitbreaker.calls")
+                .tag("name", name).tag("kind", "successful").register(meterRegistry);
+        failedCalls = Counter.builder("circuitbreaker.calls")
+                .tag("name", name).tag("kind", "failed").register(meterRegistry);
+        rejectedCalls = Counter.builder("circuitbreaker.calls")
+                .tag("name", name).tag("kind", "not_permitted").register(meterRegistry);
+    }
+    
+    /**
+     * Ask to make a call. Returns null when the breaker rejects it; otherwise the
+     * permit must be passed to exactly one of onSuccess or onFailure.
+     */
+    synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                rejectedCalls.increment();
+                return null;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                rejectedCalls.increment();
+                return null;
+            }
+            halfOpenPermits++;
+        }
+        return new Permit(generation);
+    }
+    
+    synchronized void onSuccess(Permit permit) {
+        successfulCalls.increment();
+        // Outcomes of calls started before the last state change say nothing about the current state
+        if (permit.generation() != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else {
+            record(false);
+        }
+    }
+    
+    synchronized void onFailure(Permit permit) {
+        failedCalls.increment();
+        if (permit.generation() != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+    
+    synchronized State getState() {
+        return state;
+    }
+    
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+    
+    private void transitionTo(State next) {
+        log.warn("Circuit breaker '{}' changed from {} to {}", name, state, next);
+        state = next;
+        generation++;
+        halfOpenPermits = 0;
+        halfOpenSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+    
+    record Permit(long generation) {
+    }
+}
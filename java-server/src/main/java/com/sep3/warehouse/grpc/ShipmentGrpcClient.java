@@ -3,45 +3,136 @@ package com.sep3.warehouse.grpc;
 import com.sep3.warehouse.dto.shipment.CreateShipmentRequest;
 import com.sep3.warehouse.dto.shipment.ShipmentDTO;
 import com.sep3.warehouse.dto.shipment.ShipmentHistoryDTO;
+import com.sep3.warehouse.exception.BadRequestException;
+import com.sep3.warehouse.exception.ResourceNotFoundException;
+import com.sep3.warehouse.exception.ServiceUnavailableException;
+import io.grpc.Context;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 /**
  * gRPC client for communicating with the C# Shipment microservice.
  * 
- * This client handles all shipment-related operations by calling
- * the gRPC server running in the C# microservice.
+ * All calls go through the generated async stub with a per-call deadline and
+ * complete a CompletableFuture on the gRPC executor, so no request thread
+ * blocks while the shipment service works.
+ * 
+ * Unary calls are limited by a bulkhead (max-concurrent-calls in flight) and a
+ * {@link CircuitBreaker}; calls that are shed or hit an unavailable service fail
+ * fast with {@link ServiceUnavailableException} (503). Idempotent reads are
+ * retried on UNAVAILABLE and DEADLINE_EXCEEDED.
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class ShipmentGrpcClient {
     
+    private static final String RESILIENCE_NAME = "shipmentService";
+    
+    private final MeterRegistry meterRegistry;
+    
     @Value("${grpc.client.shipment-service.host:localhost}")
     private String host;
     
     @Value("${grpc.client.shipment-service.port:5001}")
     private int port;
     
+    @Value("${grpc.client.shipment-service.use-tls:false}")
+    private boolean useTls;
+    
+    @Value("${grpc.client.shipment-service.deadline-ms:3000}")
+    private long deadlineMs;
+    
+    @Value("${grpc.client.shipment-service.batch-deadline-ms:30000}")
+    private long batchDeadlineMs;
+    
+    @Value("${grpc.client.shipment-service.max-concurrent-calls:64}")
+    private int maxConcurrentCalls;
+    
+    @Value("${grpc.client.shipment-service.read-retries:1}")
+    private int readRetries;
+    
+    @Value("${grpc.client.shipment-service.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+    
+    @Value("${grpc.client.shipment-service.circuit-breaker.window-size:50}")
+    private int breakerWindowSize;
+    
+    @Value("${grpc.client.shipment-service.circuit-breaker.minimum-calls:20}")
+    private int breakerMinimumCalls;
+    
+    @Value("${grpc.client.shipment-service.circuit-breaker.failure-rate-threshold:50}")
+    private double breakerFailureRateThreshold;
+    
+    @Value("${grpc.client.shipment-service.circuit-breaker.open-duration-ms:10000}")
+    private long breakerOpenDurationMs;
+    
+    @Value("${grpc.client.shipment-service.circuit-breaker.half-open-calls:5}")
+    private int breakerHalfOpenCalls;
+    
     private ManagedChannel channel;
-    // Note: The actual stub will be generated from the proto file
-    // private ShipmentServiceGrpc.ShipmentServiceBlockingStub blockingStub;
+    private ShipmentServiceGrpc.ShipmentServiceStub asyncStub;
+    private Semaphore bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private Counter bulkheadRejections;
     
     @PostConstruct
     public void init() {
         log.info("Initializing gRPC client for Shipment service at {}:{}", host, port);
-        channel = ManagedChannelBuilder.forAddress(host, port)
-                .usePlaintext() // For development; use TLS in production
-                .build();
-        // blockingStub = ShipmentServiceGrpc.newBlockingStub(channel);
+        ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forAddress(host, port);
+        if (useTls) {
+            builder.useTransportSecurity();
+        } else {
+            builder.usePlaintext();
+        }
+        init(builder.build());
+    }
+    
+    /**
+     * Set up the stub, bulkhead and circuit breaker on the given channel.
+     */
+    void init(ManagedChannel channel) {
+        this.channel = channel;
+        asyncStub = ShipmentServiceGrpc.newStub(channel);
+        
+        bulkhead = new Semaphore(maxConcurrentCalls);
+        circuitBreaker = new CircuitBreaker(RESILIENCE_NAME, breakerWindowSize, breakerMinimumCalls,
+                breakerFailureRateThreshold, breakerOpenDurationMs, breakerHalfOpenCalls, meterRegistry);
+        Gauge.builder("bulkhead.available.concurrent.calls", bulkhead, Semaphore::availablePermits)
+                .tag("name", RESILIENCE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.max.allowed.concurrent.calls", () -> maxConcurrentCalls)
+                .tag("name", RESILIENCE_NAME)
+                .register(meterRegistry);
+        bulkheadRejections = Counter.builder("bulkhead.calls")
+                .tag("name", RESILIENCE_NAME).tag("kind", "rejected")
+                .register(meterRegistry);
         log.info("gRPC client initialized successfully");
     }
     
@@ -61,199 +152,348 @@ public class ShipmentGrpcClient {
     /**
      * Create a new shipment via gRPC.
      */
-    public ShipmentDTO createShipment(CreateShipmentRequest request) {
+    public CompletableFuture<ShipmentDTO> createShipment(CreateShipmentRequest request) {
         log.info("Creating shipment for order: {}", request.getOrderId());
         
-        try {
-            // This is a placeholder - actual implementation will use generated stubs
-            // CreateShipmentRequest grpcRequest = CreateShipmentRequest.newBuilder()
-            //         .setOrderId(request.getOrderId())
-            //         .setRecipientName(request.getRecipientName())
-            //         .setRecipientAddress(request.getRecipientAddress())
-            //         .setRecipientCity(request.getRecipientCity())
-            //         .setRecipientPostalCode(request.getRecipientPostalCode())
-            //         .setRecipientCountry(request.getRecipientCountry())
-            //         .setRecipientPhone(request.getRecipientPhone())
-            //         .setWeightKg(request.getWeightKg())
-            //         .setNotes(request.getNotes())
-            //         .build();
-            
-            // ShipmentResponse response = blockingStub.createShipment(grpcRequest);
-            // return mapToDTO(response.getShipment());
-            
-            // Placeholder return for compilation
-            return createPlaceholderShipment(request);
-            
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC call failed: {}", e.getStatus(), e);
-            throw new RuntimeException("Failed to create shipment: " + e.getStatus().getDescription());
-        }
+        com.sep3.warehouse.grpc.CreateShipmentRequest grpcRequest = toGrpcRequest(request);
+        
+        return this.<ShipmentResponse>call((stub, observer) -> stub.createShipment(grpcRequest, observer))
+                .thenApply(response -> unwrap(response, "create shipment"));
+    }
+    
+    /**
+     * Create shipments for many orders in a single CreateShipments call.
+     * Results are in request order; a failed item carries the service's error message.
+     */
+    public CompletableFuture<List<BatchResult>> createShipments(List<CreateShipmentRequest> requests) {
+        log.info("Creating {} shipments in one batch", requests.size());
+        
+        CreateShipmentsRequest grpcRequest = CreateShipmentsRequest.newBuilder()
+                .addAllShipments(requests.stream().map(this::toGrpcRequest).toList())
+                .build();
+        
+        return this.<CreateShipmentsResponse>call(batchDeadlineMs,
+                        (stub, observer) -> stub.createShipments(grpcRequest, observer))
+                .thenApply(response -> {
+                    if (response.getResultsCount() != requests.size()) {
+                        throw new BadRequestException("Failed to create shipments: expected "
+                                + requests.size() + " results, got " + response.getResultsCount());
+                    }
+                    List<BatchResult> results = new ArrayList<>(requests.size());
+                    for (int i = 0; i < requests.size(); i++) {
+                        ShipmentResponse result = response.getResults(i);
+                        Long orderId = requests.get(i).getOrderId();
+                        results.add(result.getSuccess() && result.hasShipment()
+                                ? new BatchResult(orderId, mapToDTO(result.getShipment()), null)
+                                : new BatchResult(orderId, null, result.getMessage()));
+                    }
+                    return results;
+                });
     }
     
     /**
      * Get shipment by ID.
      */
-    public ShipmentDTO getShipment(Long shipmentId) {
+    public CompletableFuture<ShipmentDTO> getShipment(Long shipmentId) {
         log.debug("Getting shipment: {}", shipmentId);
         
-        try {
-            // GetShipmentRequest request = GetShipmentRequest.newBuilder()
-            //         .setShipmentId(shipmentId)
-            //         .build();
-            
-            // ShipmentResponse response = blockingStub.getShipment(request);
-            // return mapToDTO(response.getShipment());
-            
-            // Placeholder return
-            return ShipmentDTO.builder()
-                    .id(shipmentId)
-                    .status("PENDING")
-                    .build();
-            
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC call failed: {}", e.getStatus(), e);
-            throw new RuntimeException("Failed to get shipment: " + e.getStatus().getDescription());
-        }
+        GetShipmentRequest request = GetShipmentRequest.newBuilder()
+                .setShipmentId(shipmentId)
+                .build();
+        
+        return this.<ShipmentResponse>callWithRetry((stub, observer) -> stub.getShipment(request, observer))
+                .thenApply(response -> unwrap(response, "get shipment"));
     }
     
     /**
      * Get shipment by order ID.
      */
-    public ShipmentDTO getShipmentByOrderId(Long orderId) {
+    public CompletableFuture<ShipmentDTO> getShipmentByOrderId(Long orderId) {
         log.debug("Getting shipment for order: {}", orderId);
         
-        try {
-            // GetShipmentByOrderIdRequest request = GetShipmentByOrderIdRequest.newBuilder()
-            //         .setOrderId(orderId)
-            //         .build();
-            
-            // ShipmentResponse response = blockingStub.getShipmentByOrderId(request);
-            // return mapToDTO(response.getShipment());
-            
-            // Placeholder return
-            return ShipmentDTO.builder()
-                    .orderId(orderId)
-                    .status("PENDING")
-                    .build();
-            
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC call failed: {}", e.getStatus(), e);
-            throw new RuntimeException("Failed to get shipment: " + e.getStatus().getDescription());
-        }
+        GetShipmentByOrderIdRequest request = GetShipmentByOrderIdRequest.newBuilder()
+                .setOrderId(orderId)
+                .build();
+        
+        return this.<ShipmentResponse>callWithRetry((stub, observer) -> stub.getShipmentByOrderId(request, observer))
+                .thenApply(response -> unwrap(response, "get shipment"));
     }
     
     /**
      * Update shipment status.
      */
-    public ShipmentDTO updateShipmentStatus(Long shipmentId, String status, String location, String notes) {
+    public CompletableFuture<ShipmentDTO> updateShipmentStatus(Long shipmentId, String status, String location, String notes) {
         log.info("Updating shipment {} status to: {}", shipmentId, status);
         
-        try {
-            // UpdateShipmentStatusRequest request = UpdateShipmentStatusRequest.newBuilder()
-            //         .setShipmentId(shipmentId)
-            //         .setStatus(ShipmentStatus.valueOf(status))
-            //         .setLocation(location)
-            //         .setNotes(notes)
-            //         .build();
-            
-            // ShipmentResponse response = blockingStub.updateShipmentStatus(request);
-            // return mapToDTO(response.getShipment());
-            
-            // Placeholder return
-            return ShipmentDTO.builder()
-                    .id(shipmentId)
-                    .status(status)
-                    .currentLocation(location)
-                    .build();
-            
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC call failed: {}", e.getStatus(), e);
-            throw new RuntimeException("Failed to update shipment: " + e.getStatus().getDescription());
-        }
+        UpdateShipmentStatusRequest request = UpdateShipmentStatusRequest.newBuilder()
+                .setShipmentId(shipmentId)
+                .setStatus(parseStatus(status))
+                .setLocation(location != null ? location : "")
+                .setNotes(notes != null ? notes : "")
+                .build();
+        
+        return this.<ShipmentResponse>call((stub, observer) -> stub.updateShipmentStatus(request, observer))
+                .thenApply(response -> unwrap(response, "update shipment"));
     }
     
     /**
      * Get all shipments.
      */
-    public List<ShipmentDTO> getAllShipments(int page, int size, String statusFilter) {
+    public CompletableFuture<List<ShipmentDTO>> getAllShipments(int page, int size, String statusFilter) {
         log.debug("Getting all shipments - page: {}, size: {}", page, size);
         
-        try {
-            // GetAllShipmentsRequest.Builder requestBuilder = GetAllShipmentsRequest.newBuilder()
-            //         .setPage(page)
-            //         .setSize(size);
-            
-            // if (statusFilter != null) {
-            //     requestBuilder.setStatusFilter(ShipmentStatus.valueOf(statusFilter));
-            // }
-            
-            // ShipmentListResponse response = blockingStub.getAllShipments(requestBuilder.build());
-            // return response.getShipmentsList().stream()
-            //         .map(this::mapToDTO)
-            //         .toList();
-            
-            // Placeholder return
-            return List.of();
-            
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC call failed: {}", e.getStatus(), e);
-            throw new RuntimeException("Failed to get shipments: " + e.getStatus().getDescription());
+        GetAllShipmentsRequest.Builder requestBuilder = GetAllShipmentsRequest.newBuilder()
+                .setPage(page)
+                .setSize(size);
+        if (statusFilter != null && !statusFilter.isBlank()) {
+            requestBuilder.setStatusFilter(parseStatus(statusFilter));
         }
+        GetAllShipmentsRequest request = requestBuilder.build();
+        
+        return this.<ShipmentListResponse>call((stub, observer) -> stub.getAllShipments(request, observer))
+                .thenApply(response -> {
+                    if (!response.getSuccess()) {
+                        throw new BadRequestException("Failed to get shipments: " + response.getMessage());
+                    }
+                    return response.getShipmentsList().stream()
+                            .map(this::mapToDTO)
+                            .toList();
+                });
     }
     
     /**
      * Cancel a shipment.
      */
-    public ShipmentDTO cancelShipment(Long shipmentId, String reason) {
+    public CompletableFuture<ShipmentDTO> cancelShipment(Long shipmentId, String reason) {
         log.info("Cancelling shipment: {}", shipmentId);
         
-        try {
-            // CancelShipmentRequest request = CancelShipmentRequest.newBuilder()
-            //         .setShipmentId(shipmentId)
-            //         .setReason(reason)
-            //         .build();
-            
-            // ShipmentResponse response = blockingStub.cancelShipment(request);
-            // return mapToDTO(response.getShipment());
+        CancelShipmentRequest request = CancelShipmentRequest.newBuilder()
+                .setShipmentId(shipmentId)
+                .setReason(reason != null ? reason : "")
+                .build();
+        
+        return this.<ShipmentResponse>call((stub, observer) -> stub.cancelShipment(request, observer))
+                .thenApply(response -> unwrap(response, "cancel shipment"));
+    }
+    
+    /**
+     * Open the long-lived stream of updates for all shipments changed after updatedSince.
+     * No deadline is set; cancel the returned context to close the stream.
+     */
+    public Context.CancellableContext streamAllShipmentUpdates(String updatedSince, StreamObserver<ShipmentUpdate> observer) {
+        StreamShipmentRequest request = StreamShipmentRequest.newBuilder()
+                .setShipmentId(0)
+                .setUpdatedSince(updatedSince != null ? updatedSince : "")
+                .build();
+        
+        Context.CancellableContext context = Context.current().withCancellation();
+        context.run(() -> asyncStub.streamShipmentUpdates(request, observer));
+        return context;
+    }
+    
+    private <T> CompletableFuture<T> call(BiConsumer<ShipmentServiceGrpc.ShipmentServiceStub, StreamObserver<T>> invocation) {
+        return call(deadlineMs, invocation);
+    }
+    
+    /**
+     * Issue an idempotent unary call, retrying with backoff while the service is unavailable or slow.
+     */
+    private <T> CompletableFuture<T> callWithRetry(BiConsumer<ShipmentServiceGrpc.ShipmentServiceStub, StreamObserver<T>> invocation) {
+        return retry(invocation, 0);
+    }
+    
+    private <T> CompletableFuture<T> retry(BiConsumer<ShipmentServiceGrpc.ShipmentServiceStub, StreamObserver<T>> invocation,
+                                           int attempt) {
+        return this.<T>call(deadlineMs, invocation).exceptionallyCompose(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (attempt >= readRetries || !isRetryable(cause)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            long delay = (retryBackoffMs << attempt) + ThreadLocalRandom.current().nextLong(retryBackoffMs + 1);
+            log.debug("Retrying shipment read in {} ms (attempt {})", delay, attempt + 2);
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> retry(invocation, attempt + 1));
+        });
+    }
+    
+    /**
+     * Issue a unary call on a deadline-bound stub and adapt the observer to a future.
+     * Fails fast without calling when the bulkhead is full or the circuit breaker is open.
+     */
+    private <T> CompletableFuture<T> call(long deadline,
+                                          BiConsumer<ShipmentServiceGrpc.ShipmentServiceStub, StreamObserver<T>> invocation) {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Shipment service is busy, try again later"));
+        }
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Shipment service is unavailable, try again later"));
+        }
+        
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicBoolean finished = new AtomicBoolean();
+        StreamObserver<T> observer = new StreamObserver<>() {
+            @Override
+            public void onNext(T value) {
+                if (finished.compareAndSet(false, true)) {
+                    bulkhead.release();
+                    circuitBreaker.onSuccess(permit);
+                }
+                future.complete(value);
+            }
             
-            // Placeholder return
-            return ShipmentDTO.builder()
-                    .id(shipmentId)
-                    .status("CANCELLED")
-                    .build();
+            @Override
+            public void onError(Throwable t) {
+                if (finished.compareAndSet(false, true)) {
+                    bulkhead.release();
+                    circuitBreaker.onFailure(permit);
+                }
+                Status status = Status.fromThrowable(t);
+                log.error("gRPC call failed: {}", status);
+                future.completeExceptionally(toException(status, t));
+            }
             
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC call failed: {}", e.getStatus(), e);
-            throw new RuntimeException("Failed to cancel shipment: " + e.getStatus().getDescription());
+            @Override
+            public void onCompleted() {
+                if (!future.isDone()) {
+                    onError(new StatusRuntimeException(
+                            Status.INTERNAL.withDescription("No response from shipment service")));
+                }
+            }
+        };
+        
+        try {
+            invocation.accept(asyncStub.withDeadlineAfter(deadline, TimeUnit.MILLISECONDS), observer);
+        } catch (RuntimeException e) {
+            observer.onError(e);
+        }
+        return future;
+    }
+    
+    private static RuntimeException toException(Status status, Throwable t) {
+        return switch (status.getCode()) {
+            case UNAVAILABLE, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED ->
+                    new ServiceUnavailableException("Shipment service call failed: " + status.getCode(), t);
+            default -> new RuntimeException("Shipment service call failed: " + status.getCode(), t);
+        };
+    }
+    
+    private static boolean isRetryable(Throwable error) {
+        // Rejections by the bulkhead or breaker carry no cause and are not retried
+        if (!(error instanceof ServiceUnavailableException) || error.getCause() == null) {
+            return false;
+        }
+        Status.Code code = Status.fromThrowable(error.getCause()).getCode();
+        return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+    }
+    
+    /**
+     * Turn an unsuccessful ShipmentResponse into the matching REST exception.
+     */
+    private ShipmentDTO unwrap(ShipmentResponse response, String action) {
+        if (response.getSuccess() && response.hasShipment()) {
+            return mapToDTO(response.getShipment());
+        }
+        String message = response.getMessage();
+        if (message != null && message.toLowerCase(Locale.ROOT).contains("not found")) {
+            throw new ResourceNotFoundException(message);
+        }
+        throw new BadRequestException("Failed to " + action + ": " + message);
+    }
+    
+    private ShipmentStatus parseStatus(String status) {
+        try {
+            ShipmentStatus parsed = ShipmentStatus.valueOf(status.toUpperCase(Locale.ROOT));
+            if (parsed != ShipmentStatus.SHIPMENT_STATUS_UNSPECIFIED && parsed != ShipmentStatus.UNRECOGNIZED) {
+                return parsed;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // fall through
         }
+        throw new BadRequestException("Invalid shipment status: " + status);
+    }
+    
+    private com.sep3.warehouse.grpc.CreateShipmentRequest toGrpcRequest(CreateShipmentRequest request) {
+        return com.sep3.warehouse.grpc.CreateShipmentRequest.newBuilder()
+                .setOrderId(request.getOrderId())
+                .setRecipientName(nullToEmpty(request.getRecipientName()))
+                .setRecipientAddress(nullToEmpty(request.getRecipientAddress()))
+                .setRecipientCity(nullToEmpty(request.getRecipientCity()))
+                .setRecipientPostalCode(nullToEmpty(request.getRecipientPostalCode()))
+                .setRecipientCountry(nullToEmpty(request.getRecipientCountry()))
+                .setRecipientPhone(nullToEmpty(request.getRecipientPhone()))
+                .setWeightKg(request.getWeightKg() != null ? request.getWeightKg() : 0.0)
+                .setNotes(nullToEmpty(request.getNotes()))
+                .build();
     }
     
     /**
-     * Create placeholder shipment for development.
+     * Map a gRPC Shipment message to DTO.
      */
-    private ShipmentDTO createPlaceholderShipment(CreateShipmentRequest request) {
+    private ShipmentDTO mapToDTO(Shipment shipment) {
         return ShipmentDTO.builder()
-                .id(System.currentTimeMillis())
-                .orderId(request.getOrderId())
-                .trackingNumber("TRK" + System.currentTimeMillis())
-                .status("PENDING")
-                .recipientName(request.getRecipientName())
-                .recipientAddress(request.getRecipientAddress())
-                .recipientCity(request.getRecipientCity())
-                .recipientPostalCode(request.getRecipientPostalCode())
-                .recipientCountry(request.getRecipientCountry())
-                .recipientPhone(request.getRecipientPhone())
-                .weightKg(request.getWeightKg())
-                .notes(request.getNotes())
-                .createdAt(LocalDateTime.now())
-                .history(List.of(
-                        ShipmentHistoryDTO.builder()
-                                .status("PENDING")
-                                .location("Warehouse")
-                                .timestamp(LocalDateTime.now().toString())
-                                .notes("Shipment created")
-                                .build()
-                ))
+                .id(shipment.getId())
+                .orderId(shipment.getOrderId())
+                .trackingNumber(shipment.getTrackingNumber())
+                .status(shipment.getStatus().name())
+                .recipientName(shipment.getRecipientName())
+                .recipientAddress(shipment.getRecipientAddress())
+                .recipientCity(shipment.getRecipientCity())
+                .recipientPostalCode(shipment.getRecipientPostalCode())
+                .recipientCountry(shipment.getRecipientCountry())
+                .recipientPhone(shipment.getRecipientPhone())
+                .weightKg(shipment.getWeightKg())
+                .currentLocation(shipment.getCurrentLocation())
+                .estimatedDelivery(shipment.getEstimatedDelivery())
+                .notes(shipment.getNotes())
+                .createdAt(parseTimestamp(shipment.getCreatedAt()))
+                .updatedAt(parseTimestamp(shipment.getUpdatedAt()))
+                .history(shipment.getHistoryList().stream()
+                        .map(entry -> ShipmentHistoryDTO.builder()
+                                .id(entry.getId())
+                                .status(entry.getStatus().name())
+                                .location(entry.getLocation())
+                                .timestamp(entry.getTimestamp())
+                                .notes(entry.getNotes())
+                                .build())
+                        .toList())
                 .build();
     }
+    
+    /**
+     * Parse the ISO-8601 ("O" format) timestamps sent by the C# service.
+     */
+    static LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException ex) {
+                log.warn("Unparseable shipment timestamp: {}", value);
+                return null;
+            }
+        }
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+    
+    /**
+     * Outcome of one item in a CreateShipments batch: the shipment, or the error message.
+     */
+    public record BatchResult(Long orderId, ShipmentDTO shipment, String error) {
+        
+        public boolean isSuccess() {
+            return shipment != null;
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package com.sep3.warehouse.grpc;
+
+import com.sep3.warehouse.dto.shipment.ShipmentDTO;
+import com.sep3.warehouse.dto.shipment.ShipmentHistoryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory projection of shipments, keyed by shipment id and order id.
+ * 
+ * Full shipment records come from RPC responses; the update stream then keeps
+ * status, location and history current. Shipments only seen on the stream are
+ * held as partial records and are not served until a full record is fetched.
+ * Nothing is served while the stream is down, since records may then be stale.
+ */
+@Component
+@Slf4j
+public class ShipmentStatusProjection {
+    
+    private final Map<Long, Entry> byShipmentId = new ConcurrentHashMap<>();
+    // Newest shipment of each order; shipment ids only grow
+    private final Map<Long, Long> shipmentIdByOrderId = new ConcurrentHashMap<>();
+    private volatile boolean live;
+    
+    /**
+     * Get a fully known shipment by id.
+     */
+    public Optional<ShipmentDTO> findById(Long shipmentId) {
+        Entry entry = live ? byShipmentId.get(shipmentId) : null;
+        return entry != null && entry.complete() ? Optional.of(entry.shipment()) : Optional.empty();
+    }
+    
+    /**
+     * Get a fully known shipment by order id.
+     */
+    public Optional<ShipmentDTO> findByOrderId(Long orderId) {
+        Long shipmentId = shipmentIdByOrderId.get(orderId);
+        return shipmentId != null ? findById(shipmentId) : Optional.empty();
+    }
+    
+    /**
+     * Id of the newest shipment seen for an order, whether or not its record is complete.
+     */
+    public Optional<Long> findNewestShipmentId(Long orderId) {
+        return Optional.ofNullable(shipmentIdByOrderId.get(orderId));
+    }
+    
+    /**
+     * Get the last full record of a shipment even when the stream is down, as a
+     * fallback while the shipment service cannot be reached.
+     */
+    public Optional<ShipmentDTO> findLastKnownById(Long shipmentId) {
+        Entry entry = byShipmentId.get(shipmentId);
+        return entry != null && entry.complete() ? Optional.of(entry.shipment()) : Optional.empty();
+    }
+    
+    /**
+     * Get the last full record of an order's shipment even when the stream is down.
+     */
+    public Optional<ShipmentDTO> findLastKnownByOrderId(Long orderId) {
+        Long shipmentId = shipmentIdByOrderId.get(orderId);
+        return shipmentId != null ? findLastKnownById(shipmentId) : Optional.empty();
+    }
+    
+    /**
+     * Store a full shipment record returned by the shipment service.
+     */
+    public ShipmentDTO record(ShipmentDTO shipment) {
+        if (shipment.getId() == null) {
+            return shipment;
+        }
+        byShipmentId.compute(shipment.getId(), (id, existing) -> {
+            // Keep a newer streamed status if the RPC response raced with the stream
+            if (existing != null && isNewer(existing.shipment().getUpdatedAt(), shipment.getUpdatedAt())) {
+                return existing;
+            }
+            return new Entry(shipment, true);
+        });
+        if (shipment.getOrderId() != null && shipment.getOrderId() > 0) {
+            shipmentIdByOrderId.merge(shipment.getOrderId(), shipment.getId(), Math::max);
+        }
+        return shipment;
+    }
+    
+    /**
+     * Apply a streamed status update; stale updates (older than the stored record) are ignored.
+     */
+    public void apply(ShipmentUpdate update) {
+        LocalDateTime updatedAt = ShipmentGrpcClient.parseTimestamp(update.getTimestamp());
+        
+        byShipmentId.compute(update.getShipmentId(), (id, existing) -> {
+            if (existing == null) {
+                return new Entry(ShipmentDTO.builder()
+                        .id(id)
+                        .orderId(update.getOrderId())
+                        .trackingNumber(update.getTrackingNumber())
+                        .status(update.getStatus().name())
+                        .currentLocation(update.getLocation())
+                        .updatedAt(updatedAt)
+                        .build(), false);
+            }
+            if (isNewer(existing.shipment().getUpdatedAt(), updatedAt)) {
+                return existing;
+            }
+            return new Entry(withUpdate(existing.shipment(), update, updatedAt), existing.complete());
+        });
+        
+        if (update.getOrderId() > 0) {
+            shipmentIdByOrderId.merge(update.getOrderId(), update.getShipmentId(), Math::max);
+        }
+    }
+    
+    /**
+     * Mark whether the update stream is currently connected.
+     */
+    public void setLive(boolean live) {
+        if (this.live != live) {
+            log.info("Shipment projection is now {}", live ? "live" : "stale");
+        }
+        this.live = live;
+    }
+    
+    public int size() {
+        return byShipmentId.size();
+    }
+    
+    private static boolean isNewer(LocalDateTime current, LocalDateTime candidate) {
+        return current != null && candidate != null && current.isAfter(candidate);
+    }
+    
+    /**
+     * Copy of a shipment with the streamed status applied and a history entry appended.
+     */
+    private static ShipmentDTO withUpdate(ShipmentDTO current, ShipmentUpdate update, LocalDateTime updatedAt) {
+        boolean statusChanged = !update.getStatus().name().equals(current.getStatus());
+        List<ShipmentHistoryDTO> history = current.getHistory() != null
+                ? new ArrayList<>(current.getHistory())
+                : new ArrayList<>();
+        if (statusChanged) {
+            history.add(ShipmentHistoryDTO.builder()
+                    .status(update.getStatus().name())
+                    .location(update.getLocation())
+                    .timestamp(update.getTimestamp())
+                    .notes(update.getNotes())
+                    .build());
+        }
+        
+        return ShipmentDTO.builder()
+                .id(current.getId())
+                .orderId(current.getOrderId())
+                .trackingNumber(current.getTrackingNumber())
+                .status(update.getStatus().name())
+                .recipientName(current.getRecipientName())
+                .recipientAddress(current.getRecipientAddress())
+                .recipientCity(current.getRecipientCity())
+                .recipientPostalCode(current.getRecipientPostalCode())
+                .recipientCountry(current.getRecipientCountry())
+                .recipientPhone(current.getRecipientPhone())
+                .weightKg(current.getWeightKg())
+                .currentLocation(update.getLocation().isEmpty() ? current.getCurrentLocation() : update.getLocation())
+                .estimatedDelivery(current.getEstimatedDelivery())
+                .notes(current.getNotes())
+                .createdAt(current.getCreatedAt())
+                .updatedAt(updatedAt != null ? updatedAt : current.getUpdatedAt())
+                .history(history)
+                .build();
+    }
+    
+    private record Entry(ShipmentDTO shipment, boolean complete) {
+    }
+}
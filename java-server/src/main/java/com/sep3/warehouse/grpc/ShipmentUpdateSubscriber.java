@@ -0,0 +1,254 @@
+package com.sep3.warehouse.grpc;
+
+import com.sep3.warehouse.repository.StreamPositionRepository;
+import com.sep3.warehouse.service.ShipmentService;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived subscriber to StreamShipmentUpdates for all shipments.
+ * 
+ * Feeds the {@link ShipmentStatusProjection} and hands status changes to
+ * {@link ShipmentService#onShipmentStatusChanged(Long, Long, String)}, one at
+ * a time in stream order. When the stream fails it reconnects with exponential
+ * backoff and jitter, resuming from the last update whose transition was
+ * applied. That position is saved in stream_positions so a restart resumes from
+ * it too. A transition that fails drops the stream, so the update is retried on
+ * reconnect instead of being skipped. Without a saved position the whole history
+ * is replayed to rebuild the projection, but only updates made after the
+ * subscriber started drive order transitions.
+ */
+@Component
+@Slf4j
+public class ShipmentUpdateSubscriber {
+    
+    private static final String STREAM_NAME = "shipment_updates";
+    
+    private final ShipmentGrpcClient shipmentGrpcClient;
+    private final ShipmentStatusProjection projection;
+    private final ShipmentService shipmentService;
+    private final StreamPositionRepository positionRepository;
+    private final boolean enabled;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shipment-stream-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile Context.CancellableContext streamContext;
+    private volatile boolean running;
+    private long backoffMs;
+    // Bumped for every stream opened, so callbacks of a dropped stream are ignored
+    private volatile int generation;
+    // Transitions of the current stream, chained so they apply in order
+    private volatile CompletableFuture<Void> applied = CompletableFuture.completedFuture(null);
+    
+    // Latest update whose transition was applied (or that needed none)
+    private volatile String position;
+    private LocalDateTime positionAt;
+    private volatile String savedPosition;
+    // Set when there was no saved position: older updates are history, not new transitions
+    private volatile LocalDateTime replayUntil;
+    
+    public ShipmentUpdateSubscriber(ShipmentGrpcClient shipmentGrpcClient,
+                                    ShipmentStatusProjection projection,
+                                    ShipmentService shipmentService,
+                                    StreamPositionRepository positionRepository,
+                                    @Value("${grpc.client.shipment-service.stream-updates:true}") boolean enabled,
+                                    @Value("${grpc.client.shipment-service.stream-backoff-initial-ms:1000}") long initialBackoffMs,
+                                    @Value("${grpc.client.shipment-service.stream-backoff-max-ms:60000}") long maxBackoffMs) {
+        this.shipmentGrpcClient = shipmentGrpcClient;
+        this.projection = projection;
+        this.shipmentService = shipmentService;
+        this.positionRepository = positionRepository;
+        this.enabled = enabled;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMs = initialBackoffMs;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Shipment update stream disabled");
+            return;
+        }
+        position = positionRepository.find(STREAM_NAME).orElse(null);
+        positionAt = position != null ? ShipmentGrpcClient.parseTimestamp(position) : null;
+        savedPosition = position;
+        if (position == null) {
+            replayUntil = LocalDateTime.now();
+            log.info("No saved shipment stream position; replaying history without order transitions");
+        }
+        running = true;
+        connect();
+    }
+    
+    /**
+     * Save the position of the latest applied update; a restart resumes from it.
+     */
+    @Scheduled(fixedDelayString = "${grpc.client.shipment-service.stream-position-save-ms:5000}")
+    public void savePosition() {
+        String position = this.position;
+        if (position == null || position.equals(savedPosition)) {
+            return;
+        }
+        try {
+            positionRepository.save(STREAM_NAME, position);
+            savedPosition = position;
+        } catch (DataAccessException e) {
+            log.warn("Could not save shipment stream position", e);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (enabled) {
+            savePosition();
+        }
+        Context.CancellableContext context = streamContext;
+        if (context != null) {
+            context.cancel(null);
+        }
+        reconnectScheduler.shutdownNow();
+    }
+    
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        int stream = nextGeneration();
+        applied = CompletableFuture.completedFuture(null);
+        String resumeFrom = position;
+        log.info("Subscribing to shipment updates{}", resumeFrom != null ? " since " + resumeFrom : "");
+        
+        try {
+            streamContext = shipmentGrpcClient.streamAllShipmentUpdates(resumeFrom, new StreamObserver<>() {
+                @Override
+                public void onNext(ShipmentUpdate update) {
+                    if (stream == generation) {
+                        projection.setLive(true);
+                        handle(update, stream);
+                    }
+                }
+                
+                @Override
+                public void onError(Throwable t) {
+                    if (stream != generation) {
+                        return;
+                    }
+                    projection.setLive(false);
+                    if (running) {
+                        log.warn("Shipment update stream failed: {}", Status.fromThrowable(t));
+                        scheduleReconnect();
+                    }
+                }
+                
+                @Override
+                public void onCompleted() {
+                    if (stream != generation) {
+                        return;
+                    }
+                    projection.setLive(false);
+                    if (running) {
+                        log.info("Shipment update stream closed by server");
+                        scheduleReconnect();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not open shipment update stream", e);
+            scheduleReconnect();
+        }
+    }
+    
+    private void handle(ShipmentUpdate update, int stream) {
+        projection.apply(update);
+        String status = update.getStatus().name();
+        // Transitions are guarded by the order's status and, for cancellations, by the order's
+        // current shipment, so the updates repeated around a resume point are harmless.
+        // Once one fails, the rest of the chain fails with it and the position stays put.
+        applied = applied
+                .thenCompose(ignored -> update.getOrderId() > 0 && !isHistory(update)
+                        ? shipmentService.onShipmentStatusChanged(update.getOrderId(), update.getShipmentId(), status)
+                        : CompletableFuture.<Void>completedFuture(null))
+                .whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        advance(update);
+                    } else {
+                        resume(stream, update, error);
+                    }
+                });
+    }
+    
+    private synchronized void advance(ShipmentUpdate update) {
+        backoffMs = initialBackoffMs;
+        LocalDateTime updatedAt = ShipmentGrpcClient.parseTimestamp(update.getTimestamp());
+        if (updatedAt != null && (positionAt == null || updatedAt.isAfter(positionAt))) {
+            positionAt = updatedAt;
+            position = update.getTimestamp();
+        }
+    }
+    
+    /**
+     * Drop the stream after a failed transition and resume from the last applied update.
+     */
+    private synchronized void resume(int stream, ShipmentUpdate update, Throwable error) {
+        if (stream != generation || !running) {
+            return;
+        }
+        log.error("Failed to apply shipment {} status {} to order {}; resuming from {}",
+                update.getShipmentId(), update.getStatus(), update.getOrderId(), position, error);
+        generation++;
+        projection.setLive(false);
+        Context.CancellableContext context = streamContext;
+        if (context != null) {
+            context.cancel(null);
+        }
+        scheduleReconnect();
+    }
+    
+    private synchronized int nextGeneration() {
+        return ++generation;
+    }
+    
+    private boolean isHistory(ShipmentUpdate update) {
+        LocalDateTime until = replayUntil;
+        if (until == null) {
+            return false;
+        }
+        LocalDateTime updatedAt = ShipmentGrpcClient.parseTimestamp(update.getTimestamp());
+        return updatedAt != null && updatedAt.isBefore(until);
+    }
+    
+    private synchronized void scheduleReconnect() {
+        long delay = backoffMs + ThreadLocalRandom.current().nextLong(backoffMs / 5 + 1);
+        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        log.info("Reconnecting to shipment update stream in {} ms", delay);
+        try {
+            reconnectScheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Shipment update stream stopped; not reconnecting");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.sep3.warehouse.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sep3.warehouse.dto.product.ImportProductRequest;
+import com.sep3.warehouse.exception.BadRequestException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Incremental reader for bulk product import files.
+ * 
+ * CSV files need a header row naming the columns (camelCase or snake_case
+ * property names of {@link ImportProductRequest}, in any order). JSON files
+ * are a single array of product objects. Rows are parsed one at a time, so
+ * the file is never held in memory. A row that cannot be converted is
+ * returned with an error instead of aborting the import; a file that is not
+ * well-formed at all fails with {@link BadRequestException}.
+ */
+public abstract class ProductImportReader implements AutoCloseable {
+    
+    /**
+     * A parsed row, numbered from 1 (the CSV header does not count).
+     * Exactly one of request and error is set.
+     */
+    public record Row(long number, ImportProductRequest request, String error) {
+    }
+    
+    protected long rowNumber;
+    
+    /**
+     * Open a reader for the given content type ("text/csv" or "application/json").
+     */
+    public static ProductImportReader open(String contentType, InputStream in, ObjectMapper objectMapper) {
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        try {
+            if (type.startsWith("text/csv")) {
+                return new Csv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024));
+            }
+            if (type.startsWith("application/json")) {
+                return new Json(objectMapper, in);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import file: " + e.getMessage());
+        }
+        throw new BadRequestException("Unsupported import content type: " + contentType
+                + " (expected text/csv or application/json)");
+    }
+    
+    /**
+     * Read the next row, or null at the end of the file.
+     */
+    public abstract Row next();
+    
+    @Override
+    public abstract void close() throws IOException;
+    
+    private static final class Json extends ProductImportReader {
+        
+        private final ObjectMapper objectMapper;
+        private final JsonParser parser;
+        
+        Json(ObjectMapper objectMapper, InputStream in) throws IOException {
+            this.objectMapper = objectMapper;
+            this.parser = objectMapper.getFactory().createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("JSON import must be an array of products");
+            }
+        }
+        
+        @Override
+        public Row next() {
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY || token == null) {
+                    return null;
+                }
+                rowNumber++;
+                // Read the element as a tree first so a bad value only rejects its own row
+                JsonNode node = parser.readValueAsTree();
+                if (node == null || !node.isObject()) {
+                    return new Row(rowNumber, null, "Expected a product object");
+                }
+                try {
+                    return new Row(rowNumber, objectMapper.treeToValue(node, ImportProductRequest.class), null);
+                } catch (IOException | IllegalArgumentException e) {
+                    return new Row(rowNumber, null, "Invalid product: " + e.getMessage().split("\n")[0]);
+                }
+            } catch (IOException e) {
+                throw new BadRequestException("Malformed JSON after row " + rowNumber + ": " + e.getMessage());
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+    
+    private static final class Csv extends ProductImportReader {
+        
+        private static final Map<String, BiConsumer<ImportProductRequest, String>> COLUMNS = new HashMap<>();
+        
+        static {
+            COLUMNS.put("sku", ImportProductRequest::setSku);
+            COLUMNS.put("name", ImportProductRequest::setName);
+            COLUMNS.put("description", ImportProductRequest::setDescription);
+            COLUMNS.put("categoryid", number("categoryId", Long::valueOf, ImportProductRequest::setCategoryId));
+            COLUMNS.put("categoryname", ImportProductRequest::setCategoryName);
+            COLUMNS.put("category", ImportProductRequest::setCategoryName);
+            COLUMNS.put("price", number("price", BigDecimal::new, ImportProductRequest::setPrice));
+            COLUMNS.put("costprice", number("costPrice", BigDecimal::new, ImportProductRequest::setCostPrice));
+            COLUMNS.put("quantityinstock", number("quantityInStock", Integer::valueOf, ImportProductRequest::setQuantityInStock));
+            COLUMNS.put("minimumstocklevel", number("minimumStockLevel", Integer::valueOf, ImportProductRequest::setMinimumStockLevel));
+            COLUMNS.put("maximumstocklevel", number("maximumStockLevel", Integer::valueOf, ImportProductRequest::setMaximumStockLevel));
+            COLUMNS.put("weightkg", number("weightKg", BigDecimal::new, ImportProductRequest::setWeightKg));
+            COLUMNS.put("dimensions", ImportProductRequest::setDimensions);
+            COLUMNS.put("location", ImportProductRequest::setLocation);
+            COLUMNS.put("barcode", ImportProductRequest::setBarcode);
+        }
+        
+        private final Reader reader;
+        private final List<BiConsumer<ImportProductRequest, String>> setters = new ArrayList<>();
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        
+        Csv(Reader reader) throws IOException {
+            this.reader = reader;
+            if (!readRecord()) {
+                throw new BadRequestException("CSV import is empty");
+            }
+            for (String column : fields) {
+                // Spreadsheet exports often start with a byte order mark
+                String key = column.replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+                BiConsumer<ImportProductRequest, String> setter = COLUMNS.get(key);
+                if (setter == null) {
+                    throw new BadRequestException("Unknown CSV column: " + column);
+                }
+                setters.add(setter);
+            }
+        }
+        
+        @Override
+        public Row next() {
+            try {
+                do {
+                    if (!readRecord()) {
+                        return null;
+                    }
+                } while (fields.size() == 1 && fields.get(0).isEmpty());
+            } catch (IOException e) {
+                throw new BadRequestException("Could not read CSV after row " + rowNumber + ": " + e.getMessage());
+            }
+            
+            rowNumber++;
+            if (fields.size() != setters.size()) {
+                return new Row(rowNumber, null,
+                        "Expected " + setters.size() + " columns but found " + fields.size());
+            }
+            ImportProductRequest request = new ImportProductRequest();
+            try {
+                for (int i = 0; i < setters.size(); i++) {
+                    String value = fields.get(i).trim();
+                    if (!value.isEmpty()) {
+                        setters.get(i).accept(request, value);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                return new Row(rowNumber, null, e.getMessage());
+            }
+            return new Row(rowNumber, request, null);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+        
+        /**
+         * Read one RFC 4180 record into {@link #fields}; quoted fields may contain
+         * commas, doubled quotes and line breaks. Returns false at end of input.
+         */
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return false;
+            }
+            fields.add(field.toString());
+            return true;
+        }
+        
+        private static <T> BiConsumer<ImportProductRequest, String> number(String column, Function<String, T> parser,
+                                                                            BiConsumer<ImportProductRequest, T> setter) {
+            return (request, value) -> {
+                try {
+                    setter.accept(request, parser.apply(value));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid number for " + column + ": '" + value + "'");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.sep3.warehouse.ledger;
+
+import com.sep3.warehouse.entity.TransactionType;
+import com.sep3.warehouse.repository.InventoryLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only writer for the inventory ledger (inventory_transactions).
+ * 
+ * Entries recorded inside a transaction are buffered and inserted as one JDBC
+ * batch just before that transaction commits, so the ledger commits or rolls
+ * back together with the stock change it describes. Large buffers are flushed
+ * early in batches of {@code batchSize}. Outside a transaction entries are
+ * written immediately.
+ */
+@Component
+@Slf4j
+public class InventoryLedger {
+    
+    private final InventoryLedgerRepository ledgerRepository;
+    private final int batchSize;
+    
+    public InventoryLedger(InventoryLedgerRepository ledgerRepository,
+                           @Value("${warehouse.ledger.batch-size:1000}") int batchSize) {
+        this.ledgerRepository = ledgerRepository;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Record one stock change.
+     */
+    public void record(Long productId, TransactionType type, int quantity,
+                       Long referenceId, String notes, Long performedBy) {
+        append(List.of(new LedgerEntry(productId, type, quantity, referenceId, notes, performedBy)));
+    }
+    
+    /**
+     * Record stock changes (product ID to signed quantity) sharing a type and reference.
+     */
+    public void recordAll(Map<Long, Integer> changes, TransactionType type,
+                          Long referenceId, String notes, Long performedBy) {
+        List<LedgerEntry> entries = new ArrayList<>(changes.size());
+        changes.forEach((productId, quantity) -> {
+            if (quantity != 0) {
+                entries.add(new LedgerEntry(productId, type, quantity, referenceId, notes, performedBy));
+            }
+        });
+        append(entries);
+    }
+    
+    /**
+     * Write the current transaction's buffered entries now (e.g. before reading the ledger back).
+     */
+    public void flush() {
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            buffer.flush();
+        }
+    }
+    
+    private void append(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ledgerRepository.insertAll(entries);
+            return;
+        }
+        
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.entries.addAll(entries);
+        if (buffer.entries.size() >= batchSize) {
+            buffer.flush();
+        }
+    }
+    
+    /**
+     * Entries of one transaction, written before it commits.
+     */
+    private final class Buffer implements TransactionSynchronization {
+        
+        private final List<LedgerEntry> entries = new ArrayList<>();
+        
+        @Override
+        public void flush() {
+            if (entries.isEmpty()) {
+                return;
+            }
+            ledgerRepository.insertAll(entries);
+            log.debug("Flushed {} inventory ledger entries", entries.size());
+            entries.clear();
+        }
+        
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            flush();
+        }
+        
+        // A REQUIRES_NEW transaction inside this one gets its own buffer
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(InventoryLedger.this);
+        }
+        
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(InventoryLedger.this, this);
+        }
+        
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InventoryLedger.this);
+        }
+    }
+}
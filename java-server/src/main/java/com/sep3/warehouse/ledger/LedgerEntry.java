@@ -0,0 +1,10 @@
+package com.sep3.warehouse.ledger;
+
+import com.sep3.warehouse.entity.TransactionType;
+
+/**
+ * One pending inventory ledger row. The timestamp is assigned by the database on insert.
+ */
+public record LedgerEntry(Long productId, TransactionType type, int quantity,
+                          Long referenceId, String notes, Long performedBy) {
+}
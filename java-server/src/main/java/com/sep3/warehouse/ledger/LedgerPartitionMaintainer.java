@@ -0,0 +1,47 @@
+package com.sep3.warehouse.ledger;
+
+import com.sep3.warehouse.repository.InventoryLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+
+/**
+ * Creates the monthly partitions of inventory_transactions ahead of time.
+ * 
+ * Runs at startup and daily, and makes sure partitions exist from the current
+ * month through {@code monthsAhead} months later. Rows outside every monthly
+ * partition land in the default partition, so a missed run never fails writes.
+ */
+@Component
+@Slf4j
+public class LedgerPartitionMaintainer {
+    
+    private final InventoryLedgerRepository ledgerRepository;
+    private final int monthsAhead;
+    
+    public LedgerPartitionMaintainer(InventoryLedgerRepository ledgerRepository,
+                                     @Value("${warehouse.ledger.partition-months-ahead:3}") int monthsAhead) {
+        this.ledgerRepository = ledgerRepository;
+        this.monthsAhead = monthsAhead;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${warehouse.ledger.partition-cron:0 30 2 * * *}")
+    public void ensurePartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            try {
+                ledgerRepository.createMonthlyPartition(month.plusMonths(i));
+            } catch (DataAccessException e) {
+                // Typically rows for that month already sit in the default partition
+                log.error("Could not create inventory ledger partition for {}", month.plusMonths(i), e);
+            }
+        }
+        log.debug("Inventory ledger partitions ensured through {}", month.plusMonths(monthsAhead));
+    }
+}
@@ -0,0 +1,307 @@
+package com.sep3.warehouse.metrics;
+
+import com.sep3.warehouse.dto.report.DashboardDTO;
+import com.sep3.warehouse.entity.OrderStatus;
+import com.sep3.warehouse.entity.Product;
+import com.sep3.warehouse.event.OrderStatusChangedEvent;
+import com.sep3.warehouse.event.ProductsChangedEvent;
+import com.sep3.warehouse.repository.OrderRepository;
+import com.sep3.warehouse.repository.ProductRepository;
+import com.sep3.warehouse.repository.ReportRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory dashboard KPIs, maintained incrementally from domain events.
+ * 
+ * Order counts per status and delivered revenue are adjusted by the deltas in
+ * {@link OrderStatusChangedEvent}. Stock counters, inventory value and the
+ * category breakdown are adjusted on {@link ProductsChangedEvent} by re-reading
+ * only the changed products by id and diffing them against their last known
+ * state. Events are applied after commit, so rolled-back work is never counted.
+ * 
+ * A scheduled reconciliation recomputes everything from the database to correct
+ * drift (writes outside the application, events racing the reconciliation) and
+ * refreshes the top-10 lists, which may therefore be one interval old. Top
+ * sellers come from the daily sales rollup and also lag its refresh. Once the
+ * first reconciliation has run, dashboard reads never touch the database.
+ */
+@Component
+@Slf4j
+public class DashboardMetrics {
+    
+    private static final int TOP_PRODUCTS = 10;
+    private static final String UNCATEGORIZED = "Uncategorized";
+    private static final LocalDate ALL_TIME = LocalDate.of(1970, 1, 1);
+    
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final ReportRollupRepository rollupRepository;
+    private final TransactionTemplate readTransaction;
+    
+    // Guarded by this
+    private final Map<Long, ProductState> products = new HashMap<>();
+    private final Map<String, CategoryTotals> categories = new HashMap<>();
+    private final Map<OrderStatus, Long> orderCounts = new EnumMap<>(OrderStatus.class);
+    private long activeProducts;
+    private long inStockCount;
+    private long lowStockCount;
+    private long outOfStockCount;
+    private BigDecimal inventoryValue = BigDecimal.ZERO;
+    private BigDecimal deliveredRevenue = BigDecimal.ZERO;
+    private List<DashboardDTO.ProductStat> topProductsByValue = List.of();
+    private List<DashboardDTO.ProductStat> topSellingProducts = List.of();
+    private boolean initialized;
+    
+    public DashboardMetrics(ProductRepository productRepository,
+                            OrderRepository orderRepository,
+                            ReportRollupRepository rollupRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.rollupRepository = rollupRepository;
+        // Listeners run after the publishing transaction commits, so reads need a fresh one
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Get the current KPIs. Only the very first call reads the database.
+     */
+    public DashboardDTO getDashboard() {
+        if (!isInitialized()) {
+            reconcile();
+        }
+        synchronized (this) {
+            Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+            long totalOrders = 0;
+            for (Map.Entry<OrderStatus, Long> entry : orderCounts.entrySet()) {
+                if (entry.getValue() != 0) {
+                    ordersByStatus.put(entry.getKey().name(), entry.getValue());
+                    totalOrders += entry.getValue();
+                }
+            }
+            
+            List<DashboardDTO.CategoryStat> categoryStats = categories.entrySet().stream()
+                    .filter(entry -> entry.getValue().productCount > 0)
+                    .map(entry -> DashboardDTO.CategoryStat.builder()
+                            .category(entry.getKey())
+                            .productCount(entry.getValue().productCount)
+                            .totalUnits(entry.getValue().units)
+                            .totalValue(entry.getValue().value)
+                            .build())
+                    .sorted(Comparator.comparing(DashboardDTO.CategoryStat::getTotalValue).reversed())
+                    .toList();
+            
+            return DashboardDTO.builder()
+                    .totalProducts(activeProducts)
+                    .inStockCount(inStockCount)
+                    .lowStockCount(lowStockCount)
+                    .outOfStockCount(outOfStockCount)
+                    .totalInventoryValue(inventoryValue)
+                    .totalOrders(totalOrders)
+                    .totalRevenue(deliveredRevenue)
+                    .ordersByStatus(ordersByStatus)
+                    .categories(categoryStats)
+                    .topProductsByValue(topProductsByValue)
+                    .topSellingProducts(topSellingProducts)
+                    .generatedAt(LocalDateTime.now())
+                    .build();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!initialized) {
+            return;
+        }
+        if (event.from() != null) {
+            orderCounts.merge(event.from(), -event.count(), Long::sum);
+        }
+        orderCounts.merge(event.to(), event.count(), Long::sum);
+        
+        BigDecimal amount = event.totalAmount() != null ? event.totalAmount() : BigDecimal.ZERO;
+        if (event.to() == OrderStatus.DELIVERED) {
+            deliveredRevenue = deliveredRevenue.add(amount);
+        }
+        if (event.from() == OrderStatus.DELIVERED) {
+            deliveredRevenue = deliveredRevenue.subtract(amount);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        if (!isInitialized() || event.productIds().isEmpty()) {
+            return;
+        }
+        // Primary-key lookups of the changed rows only
+        List<Map.Entry<Long, ProductState>> states = readTransaction.execute(status ->
+                productRepository.findStockStates(event.productIds()).stream()
+                        .map(row -> Map.entry(row.getId(), ProductState.of(row)))
+                        .toList());
+        synchronized (this) {
+            states.forEach(entry -> replace(entry.getKey(), entry.getValue()));
+        }
+    }
+    
+    /**
+     * Recompute all KPIs from the database and replace the in-memory state.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.dashboard.reconcile-interval-ms:300000}",
+               initialDelayString = "${warehouse.dashboard.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long started = System.currentTimeMillis();
+        Snapshot snapshot = readTransaction.execute(status -> loadSnapshot());
+        
+        synchronized (this) {
+            long previousLowStock = lowStockCount;
+            BigDecimal previousValue = inventoryValue;
+            boolean wasInitialized = initialized;
+            
+            products.clear();
+            categories.clear();
+            activeProducts = 0;
+            inStockCount = 0;
+            lowStockCount = 0;
+            outOfStockCount = 0;
+            inventoryValue = BigDecimal.ZERO;
+            snapshot.products().forEach(this::replace);
+            
+            orderCounts.clear();
+            orderCounts.putAll(snapshot.orderCounts());
+            deliveredRevenue = snapshot.deliveredRevenue();
+            topProductsByValue = snapshot.topProductsByValue();
+            topSellingProducts = snapshot.topSellingProducts();
+            initialized = true;
+            
+            if (wasInitialized && (previousLowStock != lowStockCount || previousValue.compareTo(inventoryValue) != 0)) {
+                log.info("Dashboard metrics drift corrected: low stock {} -> {}, inventory value {} -> {}",
+                        previousLowStock, lowStockCount, previousValue, inventoryValue);
+            }
+        }
+        log.debug("Dashboard metrics reconciled in {} ms", System.currentTimeMillis() - started);
+    }
+    
+    private synchronized boolean isInitialized() {
+        return initialized;
+    }
+    
+    private Snapshot loadSnapshot() {
+        Map<Long, ProductState> states = new HashMap<>();
+        productRepository.findAllStockStates()
+                .forEach(row -> states.put(row.getId(), ProductState.of(row)));
+        
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Object[] row : orderRepository.getOrderTotalsByStatus()) {
+            OrderStatus status = (OrderStatus) row[0];
+            counts.put(status, ((Number) row[1]).longValue());
+            // Revenue counts delivered orders only, as in the daily sales rollup
+            if (status == OrderStatus.DELIVERED && row[2] != null) {
+                revenue = toDecimal(row[2]);
+            }
+        }
+        
+        List<DashboardDTO.ProductStat> topByValue = productRepository
+                .findTopByStockValue(PageRequest.of(0, TOP_PRODUCTS)).stream()
+                .map(DashboardMetrics::toStockValueStat)
+                .toList();
+        
+        List<DashboardDTO.ProductStat> topSelling = rollupRepository.findTopSelling(ALL_TIME, LocalDate.now(), TOP_PRODUCTS);
+        
+        return new Snapshot(states, counts, revenue, topByValue, topSelling);
+    }
+    
+    /**
+     * Swap a product's state, moving its contribution out of and into the aggregates.
+     */
+    private void replace(Long productId, ProductState next) {
+        ProductState previous = products.put(productId, next);
+        if (previous != null) {
+            contribute(previous, -1);
+        }
+        contribute(next, 1);
+    }
+    
+    private void contribute(ProductState state, int sign) {
+        if (!state.active()) {
+            return;
+        }
+        BigDecimal value = state.value();
+        activeProducts += sign;
+        if (state.quantity() > 0) {
+            inStockCount += sign;
+        }
+        if (state.quantity() == 0) {
+            outOfStockCount += sign;
+        }
+        if (state.minimumLevel() != null && state.quantity() <= state.minimumLevel()) {
+            lowStockCount += sign;
+        }
+        inventoryValue = sign > 0 ? inventoryValue.add(value) : inventoryValue.subtract(value);
+        
+        CategoryTotals totals = categories.computeIfAbsent(state.category(), name -> new CategoryTotals());
+        totals.productCount += sign;
+        totals.units += (long) sign * state.quantity();
+        totals.value = sign > 0 ? totals.value.add(value) : totals.value.subtract(value);
+    }
+    
+    private static DashboardDTO.ProductStat toStockValueStat(Product product) {
+        return DashboardDTO.ProductStat.builder()
+                .productId(product.getId())
+                .sku(product.getSku())
+                .name(product.getName())
+                .quantity(product.getQuantityInStock())
+                .value(product.getPrice().multiply(BigDecimal.valueOf(product.getQuantityInStock())))
+                .build();
+    }
+    
+    private static BigDecimal toDecimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : BigDecimal.valueOf(((Number) value).doubleValue());
+    }
+    
+    private record ProductState(int quantity, Integer minimumLevel, BigDecimal price, boolean active, String category) {
+        
+        static ProductState of(ProductRepository.StockState row) {
+            return new ProductState(
+                    row.getQuantityInStock() != null ? row.getQuantityInStock() : 0,
+                    row.getMinimumStockLevel(),
+                    row.getPrice() != null ? row.getPrice() : BigDecimal.ZERO,
+                    Boolean.TRUE.equals(row.getActive()),
+                    row.getCategoryName() != null ? row.getCategoryName() : UNCATEGORIZED);
+        }
+        
+        BigDecimal value() {
+            return price.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+    
+    private static final class CategoryTotals {
+        private long productCount;
+        private long units;
+        private BigDecimal value = BigDecimal.ZERO;
+    }
+    
+    private record Snapshot(Map<Long, ProductState> products,
+                            Map<OrderStatus, Long> orderCounts,
+                            BigDecimal deliveredRevenue,
+                            List<DashboardDTO.ProductStat> topProductsByValue,
+                            List<DashboardDTO.ProductStat> topSellingProducts) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.ledger.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * JDBC writes to the partitioned inventory_transactions table.
+ * Runs on the connection of the surrounding JPA transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryLedgerRepository {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_transactions (product_id, transaction_type, quantity, reference_id, notes, performed_by) " +
+            "VALUES (?, CAST(? AS transaction_type), ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Insert ledger rows in one JDBC batch.
+     */
+    public void insertAll(List<LedgerEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.productId());
+            ps.setString(2, entry.type().name());
+            ps.setInt(3, entry.quantity());
+            ps.setObject(4, entry.referenceId(), Types.BIGINT);
+            ps.setString(5, entry.notes());
+            ps.setObject(6, entry.performedBy(), Types.BIGINT);
+        });
+    }
+    
+    /**
+     * Create the monthly partition containing the given day, if it does not exist yet.
+     */
+    public void createMonthlyPartition(LocalDate month) {
+        jdbcTemplate.queryForObject("SELECT create_inventory_transactions_partition(?)", String.class,
+                Date.valueOf(month));
+    }
+}
@@ -4,6 +4,7 @@ import com.sep3.warehouse.entity.InventoryTransaction;
 import com.sep3.warehouse.entity.TransactionType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,19 +18,86 @@ import java.util.List;
 @Repository
 public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
     
+    @EntityGraph(attributePaths = {"product", "performedBy"})
     @Query("SELECT it FROM InventoryTransaction it WHERE it.product.id = :productId ORDER BY it.createdAt DESC")
     Page<InventoryTransaction> findByProductId(@Param("productId") Long productId, Pageable pageable);
     
     @Query("SELECT it FROM InventoryTransaction it WHERE it.transactionType = :type ORDER BY it.createdAt DESC")
     Page<InventoryTransaction> findByTransactionType(@Param("type") TransactionType type, Pageable pageable);
     
-    @Query("SELECT it FROM InventoryTransaction it WHERE it.createdAt BETWEEN :startDate AND :endDate ORDER BY it.createdAt DESC")
-    List<InventoryTransaction> findByDateRange(
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate
+    /**
+     * Movement totals per product for entries in [start, end), aggregated in the database.
+     */
+    @Query("SELECT p.id AS productId, p.sku AS sku, p.name AS productName, COUNT(it) AS transactions, " +
+           "SUM(CASE WHEN it.quantity > 0 THEN it.quantity ELSE 0 END) AS quantityIn, " +
+           "SUM(CASE WHEN it.quantity < 0 THEN -it.quantity ELSE 0 END) AS quantityOut, " +
+           "SUM(it.quantity) AS netQuantity " +
+           "FROM InventoryTransaction it JOIN it.product p " +
+           "WHERE it.createdAt >= :start AND it.createdAt < :end " +
+           "GROUP BY p.id, p.sku, p.name ORDER BY p.id")
+    List<ProductMovementTotals> sumByProduct(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    /**
+     * Movement totals per transaction type for entries in [start, end), aggregated in the database.
+     */
+    @Query("SELECT it.transactionType AS transactionType, COUNT(it) AS transactions, " +
+           "SUM(CASE WHEN it.quantity > 0 THEN it.quantity ELSE 0 END) AS quantityIn, " +
+           "SUM(CASE WHEN it.quantity < 0 THEN -it.quantity ELSE 0 END) AS quantityOut, " +
+           "SUM(it.quantity) AS netQuantity " +
+           "FROM InventoryTransaction it " +
+           "WHERE it.createdAt >= :start AND it.createdAt < :end " +
+           "GROUP BY it.transactionType ORDER BY it.transactionType")
+    List<TypeMovementTotals> sumByType(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // Keyset pagination: rows after the given (createdAt, id) position, newest first. The
+    // redundant createdAt <= bound lets the planner start an index range scan at the cursor
+    
+    @EntityGraph(attributePaths = {"product", "performedBy"})
+    @Query("SELECT it FROM InventoryTransaction it " +
+           "WHERE it.createdAt <= :createdAt AND (it.createdAt < :createdAt OR (it.createdAt = :createdAt AND it.id < :id)) " +
+           "ORDER BY it.createdAt DESC, it.id DESC")
+    List<InventoryTransaction> findAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+    
+    @EntityGraph(attributePaths = {"product", "performedBy"})
+    @Query("SELECT it FROM InventoryTransaction it WHERE it.product.id = :productId " +
+           "AND it.createdAt <= :createdAt AND (it.createdAt < :createdAt OR (it.createdAt = :createdAt AND it.id < :id)) " +
+           "ORDER BY it.createdAt DESC, it.id DESC")
+    List<InventoryTransaction> findByProductIdAfter(
+            @Param("productId") Long productId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
     );
     
     @Query("SELECT it.transactionType, SUM(it.quantity) FROM InventoryTransaction it " +
            "WHERE it.product.id = :productId GROUP BY it.transactionType")
     List<Object[]> getTransactionSummaryByProduct(@Param("productId") Long productId);
+    
+    /**
+     * Movement totals of one product.
+     */
+    interface ProductMovementTotals {
+        Long getProductId();
+        String getSku();
+        String getProductName();
+        Long getTransactions();
+        Long getQuantityIn();
+        Long getQuantityOut();
+        Long getNetQuantity();
+    }
+    
+    /**
+     * Movement totals of one transaction type.
+     */
+    interface TypeMovementTotals {
+        TransactionType getTransactionType();
+        Long getTransactions();
+        Long getQuantityIn();
+        Long getQuantityOut();
+        Long getNetQuantity();
+    }
 }
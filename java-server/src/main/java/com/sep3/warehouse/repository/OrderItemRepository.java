@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,8 +20,8 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.product.id = :productId")
     List<OrderItem> findByProductId(@Param("productId") Long productId);
     
-    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
-           "JOIN oi.order o WHERE o.status = 'DELIVERED' " +
-           "GROUP BY oi.product.id ORDER BY SUM(oi.quantity) DESC")
-    List<Object[]> findTopSellingProducts();
+    // Total shipping weight per order as (orderId, weightKg) rows, for dispatch waves
+    @Query("SELECT oi.order.id, SUM(COALESCE(p.weightKg, 0) * oi.quantity) FROM OrderItem oi " +
+           "JOIN oi.product p WHERE oi.order.id IN :orderIds GROUP BY oi.order.id")
+    List<Object[]> sumWeightByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -1,34 +1,66 @@
 package com.sep3.warehouse.repository;
 
+import com.sep3.warehouse.dto.order.OrderSummaryDTO;
 import com.sep3.warehouse.entity.Order;
 import com.sep3.warehouse.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository for Order entity.
+ * Paged queries use the "Order.withUsers" entity graph; order items are batch-fetched
+ * (see {@link Order#getOrderItems()}), so a page costs a constant number of queries.
  */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    @Override
+    @EntityGraph("Order.withUsers")
+    Page<Order> findAll(Pageable pageable);
+    
+    @EntityGraph("Order.withUsers")
     @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId ORDER BY o.createdAt DESC")
     Page<Order> findByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
     
+    @EntityGraph("Order.withUsers")
     @Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.createdAt DESC")
     Page<Order> findByStatus(@Param("status") OrderStatus status, Pageable pageable);
     
+    // Oldest orders in a status that no dispatch wave holds; rows another wave is claiming are skipped, not waited on
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status " +
+           "AND (o.dispatchClaimedAt IS NULL OR o.dispatchClaimedAt < :expiredBefore) " +
+           "ORDER BY o.createdAt ASC, o.id ASC")
+    List<Long> findUnclaimedIdsByStatus(@Param("status") OrderStatus status,
+                                        @Param("expiredBefore") LocalDateTime expiredBefore,
+                                        Pageable pageable);
+    
+    @EntityGraph("Order.withUsers")
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.createdAt ASC, o.id ASC")
+    List<Order> findOldestByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph("Order.withUsers")
     @Query("SELECT o FROM Order o WHERE o.status IN :statuses ORDER BY o.createdAt DESC")
     Page<Order> findByStatusIn(@Param("statuses") List<OrderStatus> statuses, Pageable pageable);
     
+    @EntityGraph("Order.withUsers")
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate ORDER BY o.createdAt DESC")
     Page<Order> findByDateRange(
             @Param("startDate") LocalDateTime startDate,
@@ -36,19 +68,92 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             Pageable pageable
     );
     
+    @EntityGraph("Order.withUsers")
     @Query("SELECT o FROM Order o WHERE o.processedBy.id = :operatorId ORDER BY o.createdAt DESC")
     Page<Order> findByProcessedBy(@Param("operatorId") Long operatorId, Pageable pageable);
     
+    @Query(value = "SELECT new com.sep3.warehouse.dto.order.OrderSummaryDTO(" +
+                   "o.id, o.orderNumber, c.id, CONCAT(c.firstName, ' ', c.lastName), o.status, o.totalAmount, " +
+                   "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt) " +
+                   "FROM Order o LEFT JOIN o.customer c ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderSummaryDTO> findSummaries(Pageable pageable);
+    
+    @Query(value = "SELECT new com.sep3.warehouse.dto.order.OrderSummaryDTO(" +
+                   "o.id, o.orderNumber, c.id, CONCAT(c.firstName, ' ', c.lastName), o.status, o.totalAmount, " +
+                   "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt) " +
+                   "FROM Order o LEFT JOIN o.customer c WHERE o.status = :status ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderSummaryDTO> findSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+    
+    // Keyset pagination: rows after the given (createdAt, id) position, newest first. The
+    // redundant createdAt <= bound lets the planner start an index range scan at the cursor
+    
+    @EntityGraph("Order.withUsers")
+    @Query("SELECT o FROM Order o " +
+           "WHERE o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    @EntityGraph("Order.withUsers")
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByStatusAfter(
+            @Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+    
+    @Query("SELECT new com.sep3.warehouse.dto.order.OrderSummaryDTO(" +
+           "o.id, o.orderNumber, c.id, CONCAT(c.firstName, ' ', c.lastName), o.status, o.totalAmount, " +
+           "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt) " +
+           "FROM Order o LEFT JOIN o.customer c " +
+           "WHERE o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+    
+    @Query("SELECT new com.sep3.warehouse.dto.order.OrderSummaryDTO(" +
+           "o.id, o.orderNumber, c.id, CONCAT(c.firstName, ' ', c.lastName), o.status, o.totalAmount, " +
+           "(SELECT COUNT(oi) FROM OrderItem oi WHERE oi.order = o), o.createdAt) " +
+           "FROM Order o LEFT JOIN o.customer c WHERE o.status = :status " +
+           "AND o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesByStatusAfter(
+            @Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     long countByStatus(@Param("status") OrderStatus status);
     
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.status = 'DELIVERED' AND o.createdAt BETWEEN :startDate AND :endDate")
-    Double getTotalRevenue(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-    
     @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
     List<Object[]> getOrderCountsByStatus();
     
-    @Query(value = "SELECT COALESCE(MAX(CAST(SUBSTRING(order_number, LENGTH('ORD-YYYYMMDD-') + 1) AS INTEGER)), 0) " +
-                   "FROM orders WHERE order_number LIKE :prefix%", nativeQuery = true)
-    Integer getMaxOrderSequence(@Param("prefix") String prefix);
+    // Rows of (status, count, sum of totalAmount) in one pass over orders
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o GROUP BY o.status")
+    List<Object[]> getOrderTotalsByStatus();
+    
+    // Bulk SHIPPED transition for a dispatch wave; orders that left READY_FOR_SHIPMENT meanwhile are skipped
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.sep3.warehouse.entity.OrderStatus.SHIPPED, " +
+           "o.shippedAt = :now, o.updatedAt = :now, o.dispatchClaimedAt = NULL " +
+           "WHERE o.id IN :ids AND o.status = com.sep3.warehouse.entity.OrderStatus.READY_FOR_SHIPMENT")
+    int markShipped(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // Dispatch wave claims; a claim older than the wave's expiry is ignored, so a crashed wave never strands orders
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.dispatchClaimedAt = :now WHERE o.id IN :ids")
+    int claimForDispatch(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.dispatchClaimedAt = NULL WHERE o.id IN :ids")
+    int releaseDispatchClaims(@Param("ids") Collection<Long> ids);
 }
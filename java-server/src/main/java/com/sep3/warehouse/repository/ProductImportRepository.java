@@ -0,0 +1,83 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.dto.product.ImportProductRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC upserts for the bulk product import.
+ * 
+ * Rows are sent as one JDBC batch per chunk; with reWriteBatchedInserts on
+ * the connection URL the driver turns the batch into multi-row INSERTs.
+ * Existing SKUs get their catalog fields replaced and are reactivated, but
+ * their stock is left alone: stock changes go through stock adjustments.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductImportRepository {
+    
+    private static final String UPSERT_SQL =
+            "INSERT INTO products (sku, name, description, category_id, price, cost_price, quantity_in_stock, " +
+            "minimum_stock_level, maximum_stock_level, weight_kg, dimensions, location, barcode, is_active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE) " +
+            "ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, " +
+            "category_id = EXCLUDED.category_id, price = EXCLUDED.price, cost_price = EXCLUDED.cost_price, " +
+            "minimum_stock_level = EXCLUDED.minimum_stock_level, maximum_stock_level = EXCLUDED.maximum_stock_level, " +
+            "weight_kg = EXCLUDED.weight_kg, dimensions = EXCLUDED.dimensions, location = EXCLUDED.location, " +
+            "barcode = EXCLUDED.barcode, is_active = TRUE";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Insert or update the given products (SKUs must be distinct) in one batch.
+     */
+    public void upsert(List<ImportProductRequest> products) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, products, products.size(), ProductImportRepository::bind);
+    }
+    
+    /**
+     * Ids of the products with the given SKUs.
+     */
+    public List<Long> findIdsBySku(Collection<String> skus) {
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE sku = ANY(?)", Long.class,
+                (Object) skus.toArray(String[]::new));
+    }
+    
+    /**
+     * Id and stock of the products with the given SKUs that the current transaction
+     * inserted: created_at defaults to the transaction start and updates leave it alone.
+     */
+    public Map<Long, Integer> findInsertedStock(Collection<String> skus) {
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT id, quantity_in_stock FROM products WHERE sku = ANY(?) AND created_at = LOCALTIMESTAMP",
+                rs -> {
+                    stock.put(rs.getLong(1), rs.getInt(2));
+                },
+                (Object) skus.toArray(String[]::new));
+        return stock;
+    }
+    
+    private static void bind(PreparedStatement ps, ImportProductRequest product) throws SQLException {
+        ps.setString(1, product.getSku());
+        ps.setString(2, product.getName());
+        ps.setString(3, product.getDescription());
+        ps.setObject(4, product.getCategoryId(), Types.BIGINT);
+        ps.setBigDecimal(5, product.getPrice());
+        ps.setBigDecimal(6, product.getCostPrice());
+        ps.setInt(7, product.getQuantityInStock());
+        ps.setObject(8, product.getMinimumStockLevel(), Types.INTEGER);
+        ps.setObject(9, product.getMaximumStockLevel(), Types.INTEGER);
+        ps.setBigDecimal(10, product.getWeightKg());
+        ps.setString(11, product.getDimensions());
+        ps.setString(12, product.getLocation());
+        ps.setString(13, product.getBarcode());
+    }
+}
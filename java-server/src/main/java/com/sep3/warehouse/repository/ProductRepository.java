@@ -4,9 +4,13 @@ import com.sep3.warehouse.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +18,10 @@ import java.util.Optional;
  * Repository for Product entity.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
+    
+    // Matches ranked per search; the reported total stops here as well
+    int SEARCH_CANDIDATES = 1000;
     
     Optional<Product> findBySku(String sku);
     
@@ -25,6 +32,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.isActive = true")
     Page<Product> findAllActive(Pageable pageable);
     
+    /**
+     * Keyset pagination over active products: rows after the given (createdAt, id) position, newest first.
+     * The redundant createdAt bound lets the planner start an index range scan at the cursor.
+     */
+    @Query("SELECT p FROM Product p WHERE p.isActive = true " +
+           "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findActiveAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.isActive = true")
     Page<Product> findByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
     
@@ -34,10 +50,19 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.quantityInStock = 0 AND p.isActive = true")
     List<Product> findOutOfStockProducts();
     
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(p.sku) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<Product> search(@Param("search") String search, Pageable pageable);
+    /**
+     * Full-text search over the GIN-indexed search_vector column, best matches first.
+     * The argument must be a valid to_tsquery expression (see ProductService#toPrefixTsQuery).
+     * Only the first {@link #SEARCH_CANDIDATES} matches are ranked and counted, so a broad
+     * query costs a bounded index read instead of ranking and counting every match.
+     */
+    @Query(value = "SELECT c.* FROM (SELECT p.* FROM products p " +
+                   "WHERE p.search_vector @@ to_tsquery('simple', :tsquery) LIMIT " + SEARCH_CANDIDATES + ") c " +
+                   "ORDER BY ts_rank(c.search_vector, to_tsquery('simple', :tsquery)) DESC, c.id",
+           countQuery = "SELECT COUNT(*) FROM (SELECT 1 FROM products p " +
+                        "WHERE p.search_vector @@ to_tsquery('simple', :tsquery) LIMIT " + SEARCH_CANDIDATES + ") c",
+           nativeQuery = true)
+    Page<Product> search(@Param("tsquery") String tsquery, Pageable pageable);
     
     @Query("SELECT p FROM Product p WHERE p.location = :location AND p.isActive = true")
     List<Product> findByLocation(@Param("location") String location);
@@ -47,4 +72,39 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT SUM(p.quantityInStock * p.price) FROM Product p WHERE p.isActive = true")
     Double getTotalInventoryValue();
+    
+    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.quantityInStock > 0 " +
+           "ORDER BY p.quantityInStock * p.price DESC")
+    List<Product> findTopByStockValue(Pageable pageable);
+    
+    @Query("SELECT p.id AS id, p.quantityInStock AS quantityInStock, p.minimumStockLevel AS minimumStockLevel, " +
+           "p.price AS price, p.isActive AS active, c.name AS categoryName " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<StockState> findStockStates(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id AS id, p.quantityInStock AS quantityInStock, p.minimumStockLevel AS minimumStockLevel, " +
+           "p.price AS price, p.isActive AS active, c.name AS categoryName " +
+           "FROM Product p LEFT JOIN p.category c")
+    List<StockState> findAllStockStates();
+    
+    /**
+     * Atomically change the stock of one product, only if the result stays non-negative.
+     * Returns the number of updated rows (0 if the product is missing or stock is insufficient).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantityInStock = p.quantityInStock + :change " +
+           "WHERE p.id = :id AND p.quantityInStock + :change >= 0")
+    int applyStockChange(@Param("id") Long id, @Param("change") int change);
+    
+    /**
+     * Stock-relevant columns of a product, used by the dashboard metrics.
+     */
+    interface StockState {
+        Long getId();
+        Integer getQuantityInStock();
+        Integer getMinimumStockLevel();
+        BigDecimal getPrice();
+        Boolean getActive();
+        String getCategoryName();
+    }
 }
@@ -0,0 +1,39 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.dto.product.StockAdjustmentResult;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom repository fragment for atomic stock changes on products.
+ * Every change is a single guarded UPDATE, so concurrent writers never
+ * overwrite each other and stock can never drop below zero.
+ */
+public interface ProductStockRepository {
+    
+    /**
+     * Apply stock changes (product ID to signed delta) in one JDBC batch.
+     * A row is only changed when the result stays non-negative.
+     *
+     * @return IDs of the products that were not changed, empty if all were applied
+     */
+    List<Long> adjustStock(Map<Long, Integer> changes);
+    
+    /**
+     * Reserve (decrement) the given quantities per product ID.
+     *
+     * @return IDs of the products without enough stock, empty if all were reserved
+     */
+    List<Long> reserveStock(Map<Long, Integer> quantities);
+    
+    /**
+     * Release (increment) the given quantities per product ID.
+     */
+    void releaseStock(Map<Long, Integer> quantities);
+    
+    /**
+     * Current stock of the given products, in no particular order; missing IDs are omitted.
+     */
+    List<StockAdjustmentResult.ProductStock> findStock(Collection<Long> productIds);
+}
@@ -0,0 +1,74 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.dto.product.StockAdjustmentResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC implementation of {@link ProductStockRepository}.
+ * Runs on the connection of the surrounding JPA transaction.
+ */
+@RequiredArgsConstructor
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+    
+    private static final String ADJUST_STOCK_SQL =
+            "UPDATE products SET quantity_in_stock = quantity_in_stock + ? " +
+            "WHERE id = ? AND quantity_in_stock + ? >= 0";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public List<Long> adjustStock(Map<Long, Integer> changes) {
+        if (changes.isEmpty()) {
+            return List.of();
+        }
+        
+        // Lock rows in product ID order so concurrent orders cannot deadlock each other
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(changes.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        int[][] counts = jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+            ps.setInt(3, entry.getValue());
+        });
+        
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[0][i] == 0) {
+                rejected.add(entries.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+    
+    @Override
+    public List<Long> reserveStock(Map<Long, Integer> quantities) {
+        return adjustStock(quantities.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> -e.getValue())));
+    }
+    
+    @Override
+    public void releaseStock(Map<Long, Integer> quantities) {
+        adjustStock(quantities);
+    }
+    
+    @Override
+    public List<StockAdjustmentResult.ProductStock> findStock(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        // One array parameter instead of an IN list, so large counts stay within the bind limit
+        return jdbcTemplate.query("SELECT id, sku, quantity_in_stock FROM products WHERE id = ANY(?)",
+                (rs, rowNum) -> StockAdjustmentResult.ProductStock.builder()
+                        .productId(rs.getLong(1))
+                        .sku(rs.getString(2))
+                        .quantityInStock(rs.getInt(3))
+                        .build(),
+                (Object) productIds.toArray(Long[]::new));
+    }
+}
@@ -0,0 +1,164 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.dto.report.CategoryInventorySnapshotDTO;
+import com.sep3.warehouse.dto.report.DashboardDTO;
+import com.sep3.warehouse.dto.report.SalesReportDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access to the reporting rollup tables (daily_product_sales,
+ * category_inventory_snapshots, rollup_watermarks). Refreshes are set-based
+ * SQL statements; reads never touch orders or order_items.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReportRollupRepository {
+    
+    private static final String DELETE_SALES_DAY_SQL =
+            "DELETE FROM daily_product_sales WHERE sales_date = ?";
+    
+    private static final String INSERT_SALES_DAY_SQL =
+            "INSERT INTO daily_product_sales (sales_date, product_id, units_sold, revenue) " +
+            "SELECT CAST(o.delivered_at AS DATE), oi.product_id, SUM(oi.quantity), SUM(oi.total_price) " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.status = 'DELIVERED' AND o.delivered_at >= ? AND o.delivered_at < ? " +
+            "GROUP BY CAST(o.delivered_at AS DATE), oi.product_id";
+    
+    private static final String INSERT_INVENTORY_SNAPSHOT_SQL =
+            "INSERT INTO category_inventory_snapshots (snapshot_date, category_id, category_name, " +
+            "product_count, total_units, total_cost_value, total_retail_value) " +
+            "SELECT ?, COALESCE(c.id, 0), COALESCE(c.name, 'Uncategorized'), COUNT(p.id), " +
+            "COALESCE(SUM(p.quantity_in_stock + COALESCE(h.held, 0)), 0), " +
+            "COALESCE(SUM((p.quantity_in_stock + COALESCE(h.held, 0)) * p.cost_price), 0), " +
+            "COALESCE(SUM((p.quantity_in_stock + COALESCE(h.held, 0)) * p.price), 0) " +
+            "FROM products p LEFT JOIN categories c ON p.category_id = c.id " +
+            "LEFT JOIN (" + StockLeaseRepository.HELD_STOCK_SQL + ") h ON h.product_id = p.id " +
+            "WHERE p.is_active = TRUE GROUP BY c.id, c.name";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Read and lock a rollup's watermark; concurrent refreshes on other instances wait here.
+     */
+    public LocalDateTime lockWatermark(String rollupName) {
+        return jdbcTemplate.queryForObject(
+                "SELECT watermark FROM rollup_watermarks WHERE rollup_name = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getTimestamp(1).toLocalDateTime(), rollupName);
+    }
+    
+    public void saveWatermark(String rollupName, LocalDateTime watermark) {
+        jdbcTemplate.update("UPDATE rollup_watermarks SET watermark = ? WHERE rollup_name = ?",
+                Timestamp.valueOf(watermark), rollupName);
+    }
+    
+    /**
+     * Database time minus the given lag, used as the upper bound of a refresh.
+     */
+    public LocalDateTime currentTimeMinus(long lagSeconds) {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP - make_interval(secs => ?)",
+                (rs, rowNum) -> rs.getTimestamp(1).toLocalDateTime(), lagSeconds);
+    }
+    
+    /**
+     * Delivery days of orders changed in (from, to]; these are the sales days to recompute.
+     */
+    public List<LocalDate> findSalesDaysChanged(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT DISTINCT CAST(delivered_at AS DATE) FROM orders " +
+                "WHERE updated_at > ? AND updated_at <= ? AND delivered_at IS NOT NULL",
+                (rs, rowNum) -> rs.getDate(1).toLocalDate(),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+    
+    /**
+     * Recompute the daily sales rows of the given days from orders, one JDBC batch per statement.
+     */
+    public void refreshSalesDays(List<LocalDate> days) {
+        jdbcTemplate.batchUpdate(DELETE_SALES_DAY_SQL, days, days.size(),
+                (ps, day) -> ps.setDate(1, Date.valueOf(day)));
+        jdbcTemplate.batchUpdate(INSERT_SALES_DAY_SQL, days, days.size(), (ps, day) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(day.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        });
+    }
+    
+    /**
+     * Replace the inventory snapshot rows of the given day with the current stock.
+     */
+    public int snapshotCategoryInventory(LocalDate day) {
+        jdbcTemplate.update("DELETE FROM category_inventory_snapshots WHERE snapshot_date = ?", Date.valueOf(day));
+        return jdbcTemplate.update(INSERT_INVENTORY_SNAPSHOT_SQL, Date.valueOf(day));
+    }
+    
+    /**
+     * Best-selling products in [from, to] by units sold.
+     */
+    public List<DashboardDTO.ProductStat> findTopSelling(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query(
+                "SELECT s.product_id, p.sku, p.name, SUM(s.units_sold), SUM(s.revenue) " +
+                "FROM daily_product_sales s JOIN products p ON p.id = s.product_id " +
+                "WHERE s.sales_date BETWEEN ? AND ? " +
+                "GROUP BY s.product_id, p.sku, p.name ORDER BY SUM(s.units_sold) DESC LIMIT ?",
+                (rs, rowNum) -> DashboardDTO.ProductStat.builder()
+                        .productId(rs.getLong(1))
+                        .sku(rs.getString(2))
+                        .name(rs.getString(3))
+                        .quantity(rs.getLong(4))
+                        .value(rs.getBigDecimal(5))
+                        .build(),
+                Date.valueOf(from), Date.valueOf(to), limit);
+    }
+    
+    /**
+     * Units and revenue per day in [from, to], days without sales omitted.
+     */
+    public List<SalesReportDTO.DailySales> findDailySales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT sales_date, SUM(units_sold), SUM(revenue) FROM daily_product_sales " +
+                "WHERE sales_date BETWEEN ? AND ? GROUP BY sales_date ORDER BY sales_date",
+                (rs, rowNum) -> SalesReportDTO.DailySales.builder()
+                        .date(rs.getDate(1).toLocalDate())
+                        .units(rs.getLong(2))
+                        .revenue(rs.getBigDecimal(3))
+                        .build(),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+    
+    /**
+     * Delivered revenue in [from, to].
+     */
+    public BigDecimal getRevenue(LocalDate from, LocalDate to) {
+        BigDecimal revenue = jdbcTemplate.queryForObject(
+                "SELECT SUM(revenue) FROM daily_product_sales WHERE sales_date BETWEEN ? AND ?",
+                BigDecimal.class, Date.valueOf(from), Date.valueOf(to));
+        return revenue != null ? revenue : BigDecimal.ZERO;
+    }
+    
+    /**
+     * Category inventory snapshots in [from, to], oldest day first.
+     */
+    public List<CategoryInventorySnapshotDTO> findInventorySnapshots(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT snapshot_date, category_id, category_name, product_count, total_units, " +
+                "total_cost_value, total_retail_value FROM category_inventory_snapshots " +
+                "WHERE snapshot_date BETWEEN ? AND ? ORDER BY snapshot_date, total_retail_value DESC",
+                (rs, rowNum) -> CategoryInventorySnapshotDTO.builder()
+                        .snapshotDate(rs.getDate(1).toLocalDate())
+                        .categoryId(rs.getLong(2))
+                        .categoryName(rs.getString(3))
+                        .productCount(rs.getLong(4))
+                        .totalUnits(rs.getLong(5))
+                        .totalCostValue(rs.getBigDecimal(6))
+                        .totalRetailValue(rs.getBigDecimal(7))
+                        .build(),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+}
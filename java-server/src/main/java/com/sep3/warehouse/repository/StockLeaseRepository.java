@@ -0,0 +1,161 @@
+package com.sep3.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to hot_products and stock_leases.
+ * 
+ * A lease moves units out of products.quantity_in_stock into one server
+ * instance's memory, so they can never be sold twice. The lease row records the
+ * units still unused as of its last heartbeat; leases whose instance stopped
+ * heartbeating are recovered by returning that figure less every sale and
+ * stock removal recorded since, which can only under-return.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockLeaseRepository {
+    
+    /**
+     * Sales and manual removals, either of which may have been taken from a lease.
+     */
+    private static final String LEASE_USAGE =
+            "(t.transaction_type = 'SALE' OR t.transaction_type = 'ADJUSTMENT' AND t.quantity < 0)";
+    
+    /**
+     * Units leased out of each product's stock and not yet sold, as (product_id, held):
+     * a lease's quantity at its last heartbeat less the sales and removals recorded
+     * since. Stock figures add this back; it lags the instances' counters by at most
+     * one heartbeat.
+     */
+    public static final String HELD_STOCK_SQL =
+            "SELECT l.product_id, SUM(GREATEST(l.quantity + COALESCE((" +
+            "SELECT SUM(t.quantity) FROM inventory_transactions t WHERE t.product_id = l.product_id " +
+            "AND " + LEASE_USAGE + " AND t.created_at > l.heartbeat_at), 0), 0)) AS held " +
+            "FROM stock_leases l GROUP BY l.product_id";
+    
+    private static final String TAKE_STOCK_SQL =
+            "UPDATE products p SET quantity_in_stock = p.quantity_in_stock - g.granted " +
+            "FROM (SELECT id, LEAST(quantity_in_stock, ?) AS granted FROM products WHERE id = ? FOR UPDATE) g " +
+            "WHERE p.id = g.id AND g.granted > 0 RETURNING g.granted";
+    
+    private static final String SAVE_LEASE_SQL =
+            "INSERT INTO stock_leases (product_id, instance_id, quantity, heartbeat_at) " +
+            "VALUES (?, ?, ?, LOCALTIMESTAMP) ON CONFLICT (product_id, instance_id) " +
+            "DO UPDATE SET quantity = EXCLUDED.quantity, heartbeat_at = EXCLUDED.heartbeat_at";
+    
+    private static final String RETURN_LEASE_SQL =
+            "WITH lease AS (DELETE FROM stock_leases WHERE product_id = ? AND instance_id = ? RETURNING product_id) " +
+            "UPDATE products SET quantity_in_stock = quantity_in_stock + ? " +
+            "WHERE id IN (SELECT product_id FROM lease)";
+    
+    private static final String RECOVER_STALE_LEASES_SQL =
+            "WITH stale AS (" +
+            "DELETE FROM stock_leases WHERE heartbeat_at < LOCALTIMESTAMP - make_interval(secs => ?) " +
+            "RETURNING product_id, quantity, heartbeat_at), " +
+            "unused AS (SELECT s.product_id, GREATEST(s.quantity + COALESCE((" +
+            "SELECT SUM(t.quantity) FROM inventory_transactions t WHERE t.product_id = s.product_id " +
+            "AND " + LEASE_USAGE + " AND t.created_at > s.heartbeat_at - make_interval(secs => ?)" +
+            "), 0), 0) AS units FROM stale s) " +
+            "UPDATE products p SET quantity_in_stock = p.quantity_in_stock + u.units " +
+            "FROM (SELECT product_id, SUM(units) AS units FROM unused GROUP BY product_id) u " +
+            "WHERE p.id = u.product_id RETURNING p.id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Hot products and their lease block sizes.
+     */
+    public Map<Long, Integer> findHotProducts() {
+        Map<Long, Integer> blockSizes = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, block_size FROM hot_products",
+                rs -> {
+                    blockSizes.put(rs.getLong(1), rs.getInt(2));
+                });
+        return blockSizes;
+    }
+    
+    public void saveHotProduct(Long productId, int blockSize) {
+        jdbcTemplate.update("INSERT INTO hot_products (product_id, block_size) VALUES (?, ?) " +
+                "ON CONFLICT (product_id) DO UPDATE SET block_size = EXCLUDED.block_size",
+                productId, blockSize);
+    }
+    
+    public void deleteHotProduct(Long productId) {
+        jdbcTemplate.update("DELETE FROM hot_products WHERE product_id = ?", productId);
+    }
+    
+    /**
+     * Units of a product currently held by leases; see {@link #HELD_STOCK_SQL}.
+     */
+    public int findHeldStock(Long productId) {
+        Integer held = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(h.held), 0) FROM (" + HELD_STOCK_SQL + ") h WHERE h.product_id = ?",
+                Integer.class, productId);
+        return held != null ? held : 0;
+    }
+    
+    /**
+     * Take up to {@code maxUnits} from a product's stock and return how many were taken.
+     */
+    public int takeStock(Long productId, int maxUnits) {
+        List<Integer> granted = jdbcTemplate.queryForList(TAKE_STOCK_SQL, Integer.class, maxUnits, productId);
+        return granted.isEmpty() ? 0 : granted.get(0);
+    }
+    
+    /**
+     * Record the units an instance holds for a product, refreshing the heartbeat.
+     */
+    public void saveLease(Long productId, String instanceId, int quantity) {
+        jdbcTemplate.update(SAVE_LEASE_SQL, productId, instanceId, quantity);
+    }
+    
+    /**
+     * Refresh the held units and heartbeat of several leases in one batch.
+     * Returns the product IDs whose lease no longer exists (it was recovered as stale).
+     */
+    public List<Long> heartbeat(String instanceId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "UPDATE stock_leases SET quantity = ?, heartbeat_at = LOCALTIMESTAMP " +
+                "WHERE product_id = ? AND instance_id = ?",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                    ps.setString(3, instanceId);
+                });
+        
+        List<Long> lost = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[0][i] == 0) {
+                lost.add(entries.get(i).getKey());
+            }
+        }
+        return lost;
+    }
+    
+    /**
+     * Give an instance's unused units back to stock and delete its lease.
+     * Nothing is returned if the lease was already recovered.
+     */
+    public boolean returnLease(Long productId, String instanceId, int quantity) {
+        return jdbcTemplate.update(RETURN_LEASE_SQL, productId, instanceId, quantity) > 0;
+    }
+    
+    /**
+     * Return the unused units of leases not heartbeated for {@code ttlSeconds}.
+     * Sales recorded since {@code marginSeconds} before the last heartbeat are
+     * deducted, covering orders that reserved units after it.
+     */
+    public List<Long> recoverStaleLeases(long ttlSeconds, long marginSeconds) {
+        return jdbcTemplate.queryForList(RECOVER_STALE_LEASES_SQL, Long.class, ttlSeconds, marginSeconds);
+    }
+}
@@ -0,0 +1,98 @@
+package com.sep3.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to inventory_stock_snapshots and the ledger deltas replayed on top of them.
+ * 
+ * A snapshot's quantity is the stock at snapshot_at: the current stock minus
+ * the ledger entries recorded after that time. Stock and ledger rows commit
+ * together, so reading both in one statement is consistent. Units leased out
+ * to server instances are added back, since they are still on the shelf until
+ * a SALE entry records them.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockSnapshotRepository {
+    
+    private static final String SNAPSHOT_SELECT =
+            "INSERT INTO inventory_stock_snapshots (product_id, snapshot_at, quantity) " +
+            "SELECT p.id, ?, p.quantity_in_stock + COALESCE(h.held, 0) - COALESCE(d.delta, 0) FROM products p " +
+            "LEFT JOIN (" + StockLeaseRepository.HELD_STOCK_SQL + ") h ON h.product_id = p.id " +
+            "LEFT JOIN (SELECT product_id, SUM(quantity) AS delta FROM inventory_transactions " +
+            "WHERE created_at > ? GROUP BY product_id) d ON d.product_id = p.id";
+    
+    private static final String SNAPSHOT_ALL_SQL = SNAPSHOT_SELECT +
+            " ON CONFLICT (product_id, snapshot_at) DO NOTHING";
+    
+    private static final String SNAPSHOT_CHANGED_SQL = SNAPSHOT_SELECT +
+            " WHERE p.id IN (SELECT product_id FROM inventory_transactions WHERE created_at > ? AND created_at <= ?)" +
+            " ON CONFLICT (product_id, snapshot_at) DO NOTHING";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Snapshot every product's stock as of the given time.
+     */
+    public int snapshotAll(LocalDateTime at) {
+        return jdbcTemplate.update(SNAPSHOT_ALL_SQL, Timestamp.valueOf(at), Timestamp.valueOf(at));
+    }
+    
+    /**
+     * Snapshot, as of the given time, the products with ledger entries in (since, at].
+     */
+    public int snapshotChanged(LocalDateTime since, LocalDateTime at) {
+        return jdbcTemplate.update(SNAPSHOT_CHANGED_SQL, Timestamp.valueOf(at), Timestamp.valueOf(at),
+                Timestamp.valueOf(since), Timestamp.valueOf(at));
+    }
+    
+    /**
+     * Latest snapshot of a product taken at or before the given time.
+     */
+    public Optional<Snapshot> findLatestAtOrBefore(Long productId, LocalDateTime at) {
+        return first(jdbcTemplate.query(
+                "SELECT snapshot_at, quantity FROM inventory_stock_snapshots " +
+                "WHERE product_id = ? AND snapshot_at <= ? ORDER BY snapshot_at DESC LIMIT 1",
+                (rs, rowNum) -> new Snapshot(rs.getTimestamp(1).toLocalDateTime(), rs.getInt(2)),
+                productId, Timestamp.valueOf(at)));
+    }
+    
+    /**
+     * Earliest snapshot of a product taken after the given time.
+     */
+    public Optional<Snapshot> findEarliestAfter(Long productId, LocalDateTime at) {
+        return first(jdbcTemplate.query(
+                "SELECT snapshot_at, quantity FROM inventory_stock_snapshots " +
+                "WHERE product_id = ? AND snapshot_at > ? ORDER BY snapshot_at LIMIT 1",
+                (rs, rowNum) -> new Snapshot(rs.getTimestamp(1).toLocalDateTime(), rs.getInt(2)),
+                productId, Timestamp.valueOf(at)));
+    }
+    
+    /**
+     * Sum and count of a product's ledger entries in (from, to]; to may be null for "up to now".
+     */
+    public LedgerDelta sumLedger(Long productId, LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT COALESCE(SUM(quantity), 0), COUNT(*) FROM inventory_transactions " +
+                "WHERE product_id = ? AND created_at > ?" + (to != null ? " AND created_at <= ?" : "");
+        Object[] args = to != null
+                ? new Object[] {productId, Timestamp.valueOf(from), Timestamp.valueOf(to)}
+                : new Object[] {productId, Timestamp.valueOf(from)};
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new LedgerDelta(rs.getLong(1), rs.getLong(2)), args);
+    }
+    
+    private static <T> Optional<T> first(List<T> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+    
+    public record Snapshot(LocalDateTime snapshotAt, int quantity) {
+    }
+    
+    public record LedgerDelta(long quantity, long transactions) {
+    }
+}
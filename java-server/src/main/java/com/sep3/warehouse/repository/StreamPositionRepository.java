@@ -0,0 +1,31 @@
+package com.sep3.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to stream_positions, where long-lived subscribers keep the
+ * position to resume from after a restart.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StreamPositionRepository {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public Optional<String> find(String streamName) {
+        List<String> positions = jdbcTemplate.queryForList(
+                "SELECT position FROM stream_positions WHERE stream_name = ?", String.class, streamName);
+        return positions.stream().findFirst();
+    }
+    
+    public void save(String streamName, String position) {
+        jdbcTemplate.update("INSERT INTO stream_positions (stream_name, position, updated_at) " +
+                "VALUES (?, ?, CURRENT_TIMESTAMP) ON CONFLICT (stream_name) " +
+                "DO UPDATE SET position = EXCLUDED.position, updated_at = EXCLUDED.updated_at",
+                streamName, position);
+    }
+}
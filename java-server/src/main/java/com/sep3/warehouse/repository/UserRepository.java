@@ -38,4 +38,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) " +
            "OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<User> search(@Param("search") String search, Pageable pageable);
+    
+    /**
+     * Active flag and role name only, for per-request authentication checks.
+     */
+    @Query("SELECT u.isActive AS active, r.name AS roleName FROM User u JOIN u.role r WHERE u.id = :id")
+    Optional<UserStatus> findStatusById(@Param("id") Long id);
+    
+    /**
+     * Projection used by {@link #findStatusById(Long)}.
+     */
+    interface UserStatus {
+        Boolean getActive();
+        String getRoleName();
+    }
 }
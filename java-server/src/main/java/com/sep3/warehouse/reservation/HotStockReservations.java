@@ -0,0 +1,573 @@
+package com.sep3.warehouse.reservation;
+
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.entity.Product;
+import com.sep3.warehouse.event.ProductsChangedEvent;
+import com.sep3.warehouse.repository.ProductRepository;
+import com.sep3.warehouse.repository.StockLeaseRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory reservation front for hot products (flash sales).
+ * 
+ * Stock of a product listed in hot_products is leased from the database in
+ * blocks and held in striped counters; orders reserve from the counters without
+ * touching the product row, which is only written once per block. Leased units
+ * have already left products.quantity_in_stock, so no instance can grant more
+ * than was in stock. Reservations of an order that rolls back go back to the
+ * counters.
+ * 
+ * Orders never lease: a pool running below one block is topped up on the
+ * lease thread, and an order the counters cannot cover reserves on the row
+ * instead. All lease I/O (top-ups, returns, the reconcile job) runs under one
+ * lock that order threads never take, so a thread holding an order's
+ * connection never waits for one that needs another connection.
+ * 
+ * The reconcile job reloads the hot product list, writes the held units of all
+ * leases in one batch as a heartbeat, returns the units of products that are no
+ * longer hot or have gone idle, recovers the leases of stopped instances, and
+ * returns units given back to pools closed in the meantime.
+ */
+@Component
+@Slf4j
+public class HotStockReservations {
+    
+    private final StockLeaseRepository leaseRepository;
+    private final ProductRepository productRepository;
+    private final ProductLookupCache productLookupCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate leaseTransaction;
+    private final int stripes;
+    private final long idleReturnNanos;
+    private final long leaseTtlSeconds;
+    private final long recoveryMarginSeconds;
+    
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<Long, Pool> pools = new ConcurrentHashMap<>();
+    private volatile Map<Long, Integer> blockSizes = Map.of();
+    
+    // Held for all lease I/O; order threads never take it
+    private final ReentrantLock leaseLock = new ReentrantLock();
+    private final ExecutorService leaseExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-stock-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> refillsPending = ConcurrentHashMap.newKeySet();
+    // Units given back to closed pools, settled by the next reconcile
+    private final Queue<LateReturn> lateReturns = new ConcurrentLinkedQueue<>();
+    
+    private final LongAdder localReservations = new LongAdder();
+    private final LongAdder leases = new LongAdder();
+    
+    public HotStockReservations(StockLeaseRepository leaseRepository,
+                                ProductRepository productRepository,
+                                ProductLookupCache productLookupCache,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${warehouse.hot-stock.stripes:16}") int stripes,
+                                @Value("${warehouse.hot-stock.idle-return-ms:60000}") long idleReturnMs,
+                                @Value("${warehouse.hot-stock.lease-ttl-seconds:300}") long leaseTtlSeconds,
+                                @Value("${warehouse.hot-stock.recovery-margin-seconds:300}") long recoveryMarginSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.productRepository = productRepository;
+        this.productLookupCache = productLookupCache;
+        this.eventPublisher = eventPublisher;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = stripes;
+        this.idleReturnNanos = idleReturnMs * 1_000_000L;
+        this.leaseTtlSeconds = leaseTtlSeconds;
+        this.recoveryMarginSeconds = recoveryMarginSeconds;
+        
+        FunctionCounter.builder("hot_stock.reservations", localReservations, LongAdder::sum)
+                .description("Order reservations granted from in-memory counters")
+                .register(meterRegistry);
+        FunctionCounter.builder("hot_stock.leases", leases, LongAdder::sum)
+                .description("Stock blocks leased from the products table")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Whether orders for the product reserve from the in-memory counters.
+     */
+    public boolean isHot(Long productId) {
+        return blockSizes.containsKey(productId);
+    }
+    
+    /**
+     * Stock available to orders: the product row plus the units held here.
+     */
+    public int availableStock(Product product) {
+        Pool pool = pools.get(product.getId());
+        return product.getQuantityInStock() + (pool != null ? pool.available() : 0);
+    }
+    
+    /**
+     * Units of a product held by leases, as last heartbeated less the sales and
+     * removals recorded since; 0 for products that are not hot.
+     */
+    public int heldStock(Long productId) {
+        return isHot(productId) ? leaseRepository.findHeldStock(productId) : 0;
+    }
+    
+    /**
+     * Apply a stock change in the caller's transaction. A removal from a hot
+     * product takes what it can from the units held here and the rest from the
+     * row. Returns false, with nothing applied, if the product is missing or
+     * there is not enough stock. Must run in a transaction.
+     */
+    public boolean applyStockChange(Long productId, int change) {
+        requireTransaction();
+        Map<Long, Integer> remaining = new HashMap<>(Map.of(productId, change));
+        Map<Pool, Integer> taken = takeHeld(remaining);
+        int rest = remaining.get(productId);
+        if ((rest != 0 || taken.isEmpty()) && productRepository.applyStockChange(productId, rest) == 0) {
+            taken.forEach(this::giveBack);
+            return false;
+        }
+        giveBackOnRollback(taken);
+        return true;
+    }
+    
+    /**
+     * Apply several stock changes in the caller's transaction, like
+     * {@link #applyStockChange}, with one batch of row updates. Returns the IDs
+     * of products that were rejected; if any are, the caller must roll back.
+     */
+    public List<Long> adjustStock(Map<Long, Integer> changes) {
+        requireTransaction();
+        Map<Long, Integer> remaining = new LinkedHashMap<>(changes);
+        Map<Pool, Integer> taken = takeHeld(remaining);
+        remaining.values().removeIf(change -> change == 0);
+        List<Long> rejected = productRepository.adjustStock(remaining);
+        if (!rejected.isEmpty()) {
+            taken.forEach(this::giveBack);
+            return rejected;
+        }
+        giveBackOnRollback(taken);
+        return rejected;
+    }
+    
+    /**
+     * Reserve stock for an order, hot products from the counters and the rest
+     * with guarded row updates. Returns the IDs of products without enough stock.
+     * Must run in a transaction; counter reservations are given back if it rolls back.
+     */
+    public List<Long> reserve(Map<Long, Integer> quantities) {
+        requireTransaction();
+        
+        Map<Long, Integer> direct = new LinkedHashMap<>();
+        // Units go back to the pool they came from, never to a newer pool of the same product
+        Map<Pool, Integer> reserved = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            Integer blockSize = blockSizes.get(productId);
+            Pool pool = blockSize != null ? take(productId, blockSize, quantity) : null;
+            if (pool != null) {
+                reserved.put(pool, quantity);
+            } else {
+                // Not hot, or more than the counters hold right now: a guarded update of the row
+                direct.put(productId, quantity);
+            }
+        });
+        
+        giveBackOnRollback(reserved);
+        return productRepository.reserveStock(direct);
+    }
+    
+    /**
+     * Mark a product as hot; its stock is leased on the next order.
+     */
+    public void enable(Long productId, int blockSize) {
+        leaseRepository.saveHotProduct(productId, blockSize);
+        Map<Long, Integer> updated = new HashMap<>(blockSizes);
+        updated.put(productId, blockSize);
+        blockSizes = Map.copyOf(updated);
+        log.info("Hot stock reservations enabled for product {} in blocks of {}", productId, blockSize);
+    }
+    
+    /**
+     * Stop reserving a product from memory; the units held here are returned on
+     * the lease thread, those of other instances on their next reconcile.
+     */
+    public void disable(Long productId) {
+        leaseRepository.deleteHotProduct(productId);
+        Map<Long, Integer> updated = new HashMap<>(blockSizes);
+        updated.remove(productId);
+        blockSizes = Map.copyOf(updated);
+        leaseExecutor.execute(() -> withLeaseLock(() -> {
+            Pool pool = pools.get(productId);
+            if (pool != null) {
+                returnPool(productId, pool);
+            }
+        }));
+        log.info("Hot stock reservations disabled for product {}", productId);
+    }
+    
+    @Scheduled(fixedDelayString = "${warehouse.hot-stock.reconcile-interval-ms:5000}")
+    public void reconcile() {
+        withLeaseLock(this::reconcileLeases);
+    }
+    
+    private void reconcileLeases() {
+        try {
+            blockSizes = Map.copyOf(leaseRepository.findHotProducts());
+            
+            long now = System.nanoTime();
+            Map<Long, Integer> held = new HashMap<>();
+            pools.forEach((productId, pool) -> {
+                if (!blockSizes.containsKey(productId) || now - pool.lastUsed > idleReturnNanos) {
+                    returnPool(productId, pool);
+                } else {
+                    held.put(productId, pool.available());
+                }
+            });
+            
+            for (Long productId : leaseRepository.heartbeat(instanceId, held)) {
+                // Recovered as stale elsewhere (or never leased); its units are no longer ours to grant
+                Pool pool = pools.get(productId);
+                if (pool != null) {
+                    synchronized (pool) {
+                        pools.remove(productId, pool);
+                        pool.revoked = true;
+                        pool.closed = true;
+                        pool.drain();
+                    }
+                }
+            }
+            
+            List<Long> recovered = leaseRepository.recoverStaleLeases(leaseTtlSeconds, recoveryMarginSeconds);
+            if (!recovered.isEmpty()) {
+                log.warn("Recovered stale stock leases for products {}", recovered);
+                stockChanged(recovered);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Hot stock reconciliation failed", e);
+        }
+        settleLateReturns();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        leaseExecutor.shutdown();
+        try {
+            leaseExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        withLeaseLock(() -> {
+            pools.forEach(this::returnPool);
+            settleLateReturns();
+        });
+    }
+    
+    /**
+     * Take the removals of hot products from their counters as far as they go,
+     * leaving the rest of each change in the map.
+     */
+    private Map<Pool, Integer> takeHeld(Map<Long, Integer> changes) {
+        Map<Pool, Integer> taken = new HashMap<>();
+        changes.replaceAll((productId, change) -> {
+            Pool pool = change < 0 && isHot(productId) ? pools.get(productId) : null;
+            int units = pool != null ? pool.take(-change) : 0;
+            if (units > 0) {
+                taken.put(pool, units);
+            }
+            return change + units;
+        });
+        return taken;
+    }
+    
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock reservations require an active transaction");
+        }
+    }
+    
+    private void giveBackOnRollback(Map<Pool, Integer> taken) {
+        if (taken.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // On an unknown outcome the units stay reserved: under-selling is recoverable, overselling is not
+                if (status == STATUS_ROLLED_BACK) {
+                    taken.forEach(HotStockReservations.this::giveBack);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Take units from a product's counters, asking for a top-up once they run
+     * below one block. Returns the pool the units came from, or null if the
+     * counters cannot cover the quantity right now.
+     */
+    private Pool take(Long productId, int blockSize, int quantity) {
+        Pool pool = pools.computeIfAbsent(productId, Pool::new);
+        pool.lastUsed = System.nanoTime();
+        int taken = pool.take(quantity);
+        if (taken < quantity) {
+            giveBack(pool, taken);
+            pool.shortfall = Math.max(pool.shortfall, quantity);
+            requestRefill(productId);
+            return null;
+        }
+        localReservations.increment();
+        if (pool.available() < blockSize) {
+            requestRefill(productId);
+        }
+        return pool;
+    }
+    
+    private void requestRefill(Long productId) {
+        if (refillsPending.add(productId)) {
+            try {
+                leaseExecutor.execute(() -> {
+                    refillsPending.remove(productId);
+                    withLeaseLock(() -> refill(productId));
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; orders fall back to the row
+                refillsPending.remove(productId);
+            }
+        }
+    }
+    
+    /**
+     * Top a pool up to at least one block (or the largest order it could not cover).
+     */
+    private void refill(Long productId) {
+        Integer blockSize = blockSizes.get(productId);
+        Pool pool = pools.get(productId);
+        if (blockSize == null || pool == null || pool.closed) {
+            return;
+        }
+        int shortfall = pool.shortfall;
+        pool.shortfall = 0;
+        if (pool.available() < Math.max(blockSize, shortfall)) {
+            try {
+                lease(productId, pool, Math.max(blockSize, shortfall - pool.available()));
+            } catch (DataAccessException e) {
+                log.warn("Could not lease stock of product {}", productId, e);
+            }
+        }
+    }
+    
+    /**
+     * Move up to {@code units} from the product row into the pool. Committed
+     * independently, so the lease survives an order that rolls back. Called
+     * under the lease lock, so the pool cannot be closed meanwhile.
+     */
+    private int lease(Long productId, Pool pool, int units) {
+        Integer granted = leaseTransaction.execute(status -> {
+            int taken = leaseRepository.takeStock(productId, units);
+            if (taken > 0) {
+                leaseRepository.saveLease(productId, instanceId, pool.available() + taken);
+            }
+            return taken;
+        });
+        if (granted > 0) {
+            pool.put(granted);
+            leases.increment();
+            log.debug("Leased {} units of product {}", granted, productId);
+        }
+        return granted;
+    }
+    
+    /**
+     * Put units taken from a pool back (a partial take or a rolled back order).
+     * Units given back to a closed pool were not part of what it returned; they
+     * are queued for the next reconcile, which does the database work.
+     */
+    private void giveBack(Pool pool, int quantity) {
+        if (quantity == 0) {
+            return;
+        }
+        synchronized (pool) {
+            if (!pool.closed) {
+                pool.put(quantity);
+                return;
+            }
+        }
+        lateReturns.add(new LateReturn(pool, quantity));
+    }
+    
+    /**
+     * Return units given back to closed pools to their rows; dropped when the
+     * pool's lease was recovered elsewhere, which already counted units not sold by then.
+     */
+    private void settleLateReturns() {
+        Map<Long, Integer> units = new HashMap<>();
+        for (LateReturn late; (late = lateReturns.poll()) != null; ) {
+            if (late.pool().revoked) {
+                log.debug("Dropping {} units of product {} whose lease was recovered",
+                        late.quantity(), late.pool().productId);
+            } else {
+                units.merge(late.pool().productId, late.quantity(), Integer::sum);
+            }
+        }
+        if (units.isEmpty()) {
+            return;
+        }
+        try {
+            leaseTransaction.executeWithoutResult(status -> productRepository.releaseStock(units));
+            stockChanged(List.copyOf(units.keySet()));
+        } catch (DataAccessException e) {
+            log.error("Could not return {} to stock", units, e);
+        }
+    }
+    
+    /**
+     * Close a pool and give its unused units back to the product row.
+     * Called under the lease lock; the pool monitor is only held in memory.
+     */
+    private void returnPool(Long productId, Pool pool) {
+        int units;
+        synchronized (pool) {
+            pools.remove(productId, pool);
+            pool.closed = true;
+            units = pool.drain();
+        }
+        try {
+            boolean returned = leaseRepository.returnLease(productId, instanceId, units);
+            // No lease row means it was recovered elsewhere; late give-backs must not be counted again
+            pool.revoked = !returned;
+            if (returned && units > 0) {
+                log.debug("Returned {} leased units of product {}", units, productId);
+                stockChanged(List.of(productId));
+            }
+        } catch (DataAccessException e) {
+            // The lease row remains and is recovered once it goes stale
+            pool.revoked = true;
+            log.warn("Could not return {} leased units of product {}", units, productId, e);
+        }
+    }
+    
+    private void withLeaseLock(Runnable action) {
+        leaseLock.lock();
+        try {
+            action.run();
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+    
+    private void stockChanged(List<Long> productIds) {
+        productLookupCache.invalidateAll(productIds);
+        eventPublisher.publishEvent(new ProductsChangedEvent(productIds));
+    }
+    
+    /**
+     * Leased units of one product spread over independently updated counters,
+     * so concurrent buyers rarely contend on the same one.
+     */
+    private final class Pool {
+        
+        private final Long productId;
+        private final AtomicInteger[] stripes;
+        private volatile long lastUsed = System.nanoTime();
+        // Largest order the counters could not cover since the last top-up
+        private volatile int shortfall;
+        // Written under the lease lock; closed also under the pool's monitor
+        private volatile boolean closed;
+        private volatile boolean revoked;
+        
+        Pool(Long productId) {
+            this.productId = productId;
+            this.stripes = new AtomicInteger[HotStockReservations.this.stripes];
+            for (int i = 0; i < this.stripes.length; i++) {
+                this.stripes[i] = new AtomicInteger();
+            }
+        }
+        
+        /**
+         * Take up to {@code quantity} units, starting at a random stripe, and return how
+         * many were taken. A short take must be given back.
+         */
+        int take(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            int taken = 0;
+            for (int i = 0; i < stripes.length && taken < quantity; i++) {
+                AtomicInteger stripe = stripes[(start + i) % stripes.length];
+                while (taken < quantity) {
+                    int current = stripe.get();
+                    if (current == 0) {
+                        break;
+                    }
+                    int share = Math.min(current, quantity - taken);
+                    if (stripe.compareAndSet(current, current - share)) {
+                        taken += share;
+                    }
+                }
+            }
+            return taken;
+        }
+        
+        /**
+         * Add units, spread evenly over the stripes.
+         */
+        void put(int quantity) {
+            int share = quantity / stripes.length;
+            int remainder = quantity % stripes.length;
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                int units = share + (i < remainder ? 1 : 0);
+                if (units > 0) {
+                    stripes[(start + i) % stripes.length].addAndGet(units);
+                }
+            }
+        }
+        
+        int available() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.get();
+            }
+            return total;
+        }
+        
+        int drain() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.getAndSet(0);
+            }
+            return total;
+        }
+    }
+    
+    private record LateReturn(Pool pool, int quantity) {
+    }
+}
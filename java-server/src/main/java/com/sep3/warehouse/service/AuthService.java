@@ -11,6 +11,7 @@ import com.sep3.warehouse.exception.DuplicateResourceException;
 import com.sep3.warehouse.exception.ResourceNotFoundException;
 import com.sep3.warehouse.repository.RoleRepository;
 import com.sep3.warehouse.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -145,11 +146,9 @@ public class AuthService {
     public LoginResponse refreshToken(String refreshToken) {
         log.debug("Refreshing token");
         
-        if (!jwtTokenProvider.validateToken(refreshToken)) {
-            throw new BadRequestException("Invalid refresh token");
-        }
-        
-        String username = jwtTokenProvider.getUsernameFromToken(refreshToken);
+        String username = jwtTokenProvider.parseValidatedClaims(refreshToken)
+                .map(Claims::getSubject)
+                .orElseThrow(() -> new BadRequestException("Invalid refresh token"));
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
         
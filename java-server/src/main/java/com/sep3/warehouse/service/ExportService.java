@@ -0,0 +1,172 @@
+package com.sep3.warehouse.service;
+
+import com.sep3.warehouse.entity.OrderStatus;
+import com.sep3.warehouse.entity.TransactionType;
+import com.sep3.warehouse.export.ExportFormat;
+import com.sep3.warehouse.export.ExportRowWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams orders, order items and inventory transactions to an output stream.
+ * 
+ * Rows are read through a forward-only JDBC cursor: inside a read-only
+ * transaction (autocommit off) the PostgreSQL driver fetches {@code fetchSize}
+ * rows per round trip instead of materializing the whole result, and each row
+ * is written out as soon as it is read. Memory use does not depend on the
+ * number of rows exported.
+ */
+@Service
+@Slf4j
+public class ExportService {
+    
+    private static final String ORDERS_SQL =
+            "SELECT o.id, o.order_number, o.status, o.total_amount, o.customer_id, " +
+            "o.shipping_address, o.shipping_city, o.shipping_postal_code, o.shipping_country, " +
+            "o.processed_by, o.approved_by, o.created_at, o.updated_at, o.shipped_at, o.delivered_at " +
+            "FROM orders o";
+    
+    private static final String ORDER_ITEMS_SQL =
+            "SELECT oi.id, oi.order_id, o.order_number, oi.product_id, p.sku, oi.quantity, " +
+            "oi.unit_price, oi.total_price, oi.created_at " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN products p ON p.id = oi.product_id";
+    
+    private static final String INVENTORY_TRANSACTIONS_SQL =
+            "SELECT t.id, t.product_id, p.sku, t.transaction_type, t.quantity, t.reference_id, " +
+            "t.notes, t.performed_by, t.created_at " +
+            "FROM inventory_transactions t JOIN products p ON p.id = t.product_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${warehouse.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // The driver only uses a cursor when autocommit is off, so every export runs in a transaction
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Export orders created between the given days (inclusive), optionally filtered by status.
+     */
+    public long exportOrders(OrderStatus status, LocalDate from, LocalDate to,
+                             ExportFormat format, OutputStream out) {
+        Query query = new Query(ORDERS_SQL);
+        if (status != null) {
+            query.where("o.status = CAST(? AS order_status)", status.name());
+        }
+        query.createdBetween("o.created_at", from, to);
+        return export("orders", query.orderBy("o.id"), format, out);
+    }
+    
+    /**
+     * Export items of orders created between the given days (inclusive), optionally for one product.
+     */
+    public long exportOrderItems(Long productId, LocalDate from, LocalDate to,
+                                 ExportFormat format, OutputStream out) {
+        Query query = new Query(ORDER_ITEMS_SQL);
+        if (productId != null) {
+            query.where("oi.product_id = ?", productId);
+        }
+        query.createdBetween("o.created_at", from, to);
+        return export("order items", query.orderBy("oi.id"), format, out);
+    }
+    
+    /**
+     * Export inventory transactions recorded between the given days (inclusive), optionally for one product or type.
+     */
+    public long exportInventoryTransactions(Long productId, TransactionType type, LocalDate from, LocalDate to,
+                                            ExportFormat format, OutputStream out) {
+        Query query = new Query(INVENTORY_TRANSACTIONS_SQL);
+        if (productId != null) {
+            query.where("t.product_id = ?", productId);
+        }
+        if (type != null) {
+            query.where("t.transaction_type = CAST(? AS transaction_type)", type.name());
+        }
+        query.createdBetween("t.created_at", from, to);
+        return export("inventory transactions", query.orderBy("t.id"), format, out);
+    }
+    
+    private long export(String name, Query query, ExportFormat format, OutputStream out) {
+        long started = System.currentTimeMillis();
+        Long rows = readTransaction.execute(tx -> {
+            try (ExportRowWriter writer = new ExportRowWriter(format, out)) {
+                jdbcTemplate.query(query.sql(), rs -> {
+                    try {
+                        writer.write(rs);
+                    } catch (IOException e) {
+                        // Client went away; abort the query instead of reading the rest of the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                }, query.args());
+                return writer.getRowCount();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} {} as {} in {} ms", rows, name, format, System.currentTimeMillis() - started);
+        return rows != null ? rows : 0;
+    }
+    
+    /**
+     * Base SELECT plus optional filters, built without string-concatenating values.
+     */
+    private static final class Query {
+        
+        private final StringBuilder sql;
+        private final List<Object> args = new ArrayList<>();
+        private boolean hasWhere;
+        
+        Query(String select) {
+            this.sql = new StringBuilder(select);
+        }
+        
+        Query where(String condition, Object arg) {
+            sql.append(hasWhere ? " AND " : " WHERE ").append(condition);
+            args.add(arg);
+            hasWhere = true;
+            return this;
+        }
+        
+        Query createdBetween(String column, LocalDate from, LocalDate to) {
+            if (from != null) {
+                where(column + " >= ?", Timestamp.valueOf(from.atStartOfDay()));
+            }
+            if (to != null) {
+                where(column + " < ?", Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            }
+            return this;
+        }
+        
+        Query orderBy(String column) {
+            sql.append(" ORDER BY ").append(column);
+            return this;
+        }
+        
+        String sql() {
+            return sql.toString();
+        }
+        
+        Object[] args() {
+            return args.toArray();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.sep3.warehouse.service;
+
+import com.sep3.warehouse.dto.common.CursorPage;
+import com.sep3.warehouse.dto.inventory.InventoryMovementSummaryDTO;
+import com.sep3.warehouse.dto.inventory.InventoryTransactionDTO;
+import com.sep3.warehouse.dto.inventory.MovementGrouping;
+import com.sep3.warehouse.entity.InventoryTransaction;
+import com.sep3.warehouse.repository.InventoryTransactionRepository;
+import com.sep3.warehouse.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for reading the inventory transaction history.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class InventoryTransactionService {
+    
+    private final InventoryTransactionRepository inventoryTransactionRepository;
+    
+    /**
+     * Get transactions for a product with pagination.
+     */
+    public Page<InventoryTransactionDTO> getTransactionsByProduct(Long productId, Pageable pageable) {
+        log.debug("Fetching inventory transactions for product: {}", productId);
+        return inventoryTransactionRepository.findByProductId(productId, pageable)
+                .map(this::mapToDTO);
+    }
+    
+    /**
+     * Get transactions after a cursor (keyset pagination), optionally for one product.
+     */
+    public CursorPage<InventoryTransactionDTO> getTransactionsAfter(Long productId, String after, int size) {
+        log.debug("Fetching inventory transactions after cursor for product: {}", productId);
+        PageCursor cursor = PageCursor.decode(after);
+        List<InventoryTransaction> rows = productId != null
+                ? inventoryTransactionRepository.findByProductIdAfter(productId, cursor.createdAt(), cursor.id(), CursorPage.limitFor(size))
+                : inventoryTransactionRepository.findAfter(cursor.createdAt(), cursor.id(), CursorPage.limitFor(size));
+        return CursorPage.of(rows, size, tx -> new PageCursor(tx.getCreatedAt(), tx.getId()), this::mapToDTO);
+    }
+    
+    /**
+     * Movement totals in [start, end) per product or per transaction type, aggregated in the database.
+     */
+    public List<InventoryMovementSummaryDTO> getMovementSummary(LocalDateTime start, LocalDateTime end,
+                                                                MovementGrouping grouping) {
+        log.debug("Summarizing inventory transactions from {} to {} by {}", start, end, grouping);
+        if (grouping == MovementGrouping.TYPE) {
+            return inventoryTransactionRepository.sumByType(start, end).stream()
+                    .map(totals -> InventoryMovementSummaryDTO.builder()
+                            .transactionType(totals.getTransactionType())
+                            .transactions(totals.getTransactions())
+                            .quantityIn(totals.getQuantityIn())
+                            .quantityOut(totals.getQuantityOut())
+                            .netQuantity(totals.getNetQuantity())
+                            .build())
+                    .toList();
+        }
+        return inventoryTransactionRepository.sumByProduct(start, end).stream()
+                .map(totals -> InventoryMovementSummaryDTO.builder()
+                        .productId(totals.getProductId())
+                        .productSku(totals.getSku())
+                        .productName(totals.getProductName())
+                        .transactions(totals.getTransactions())
+                        .quantityIn(totals.getQuantityIn())
+                        .quantityOut(totals.getQuantityOut())
+                        .netQuantity(totals.getNetQuantity())
+                        .build())
+                .toList();
+    }
+    
+    /**
+     * Map InventoryTransaction entity to DTO.
+     */
+    private InventoryTransactionDTO mapToDTO(InventoryTransaction transaction) {
+        return InventoryTransactionDTO.builder()
+                .id(transaction.getId())
+                .productId(transaction.getProduct().getId())
+                .productSku(transaction.getProduct().getSku())
+                .productName(transaction.getProduct().getName())
+                .transactionType(transaction.getTransactionType())
+                .quantity(transaction.getQuantity())
+                .referenceId(transaction.getReferenceId())
+                .notes(transaction.getNotes())
+                .performedById(transaction.getPerformedBy() != null ? transaction.getPerformedBy().getId() : null)
+                .performedByName(transaction.getPerformedBy() != null ? transaction.getPerformedBy().getFullName() : null)
+                .createdAt(transaction.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.sep3.warehouse.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Allocates order numbers in the format ORD-yyyyMMdd-NNNNNN.
+ * 
+ * NNNNNN comes from the order_number_seq sequence. nextval is not
+ * transactional and takes no lock, so it runs on the caller's connection
+ * without blocking other orders, several server instances never receive the
+ * same number, and the orders table is never scanned on the insert path.
+ * Numbers of rolled back orders are skipped, not reused.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderNumberAllocator {
+    
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Get the next unique order number for today.
+     */
+    public String nextOrderNumber() {
+        Long sequence = jdbcTemplate.queryForObject("SELECT nextval('order_number_seq')", Long.class);
+        return "ORD-" + LocalDate.now().format(DATE_FORMAT) + "-" + String.format("%06d", sequence);
+    }
+}
@@ -1,22 +1,32 @@
 package com.sep3.warehouse.service;
 
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.dto.common.CursorPage;
 import com.sep3.warehouse.dto.order.*;
 import com.sep3.warehouse.entity.*;
+import com.sep3.warehouse.event.OrderStatusChangedEvent;
+import com.sep3.warehouse.event.ProductsChangedEvent;
 import com.sep3.warehouse.exception.BadRequestException;
 import com.sep3.warehouse.exception.InsufficientStockException;
 import com.sep3.warehouse.exception.ResourceNotFoundException;
+import com.sep3.warehouse.ledger.InventoryLedger;
 import com.sep3.warehouse.repository.*;
+import com.sep3.warehouse.reservation.HotStockReservations;
+import com.sep3.warehouse.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing orders.
@@ -31,6 +41,11 @@ public class OrderService {
     private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final ProductLookupCache productLookupCache;
+    private final InventoryLedger inventoryLedger;
+    private final HotStockReservations hotStockReservations;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Get all orders with pagination.
@@ -84,6 +99,45 @@ public class OrderService {
                 .map(this::mapToDTO);
     }
     
+    /**
+     * Get order summaries for list views, optionally filtered by status.
+     * Projected straight from the database without loading entities or items.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDTO> getOrderSummaries(OrderStatus status, Pageable pageable) {
+        log.debug("Fetching order summaries with status: {}", status);
+        return status != null
+                ? orderRepository.findSummariesByStatus(status, pageable)
+                : orderRepository.findSummaries(pageable);
+    }
+    
+    /**
+     * Get orders after a cursor (keyset pagination), optionally filtered by status.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getOrdersAfter(OrderStatus status, String after, int size) {
+        log.debug("Fetching orders after cursor with status: {}", status);
+        PageCursor cursor = PageCursor.decode(after);
+        List<Order> rows = status != null
+                ? orderRepository.findByStatusAfter(status, cursor.createdAt(), cursor.id(), CursorPage.limitFor(size))
+                : orderRepository.findAfter(cursor.createdAt(), cursor.id(), CursorPage.limitFor(size));
+        return CursorPage.of(rows, size, order -> new PageCursor(order.getCreatedAt(), order.getId()), this::mapToDTO);
+    }
+    
+    /**
+     * Get order summaries after a cursor (keyset pagination), optionally filtered by status.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryDTO> getOrderSummariesAfter(OrderStatus status, String after, int size) {
+        log.debug("Fetching order summaries after cursor with status: {}", status);
+        PageCursor cursor = PageCursor.decode(after);
+        List<OrderSummaryDTO> rows = status != null
+                ? orderRepository.findSummariesByStatusAfter(status, cursor.createdAt(), cursor.id(), CursorPage.limitFor(size))
+                : orderRepository.findSummariesAfter(cursor.createdAt(), cursor.id(), CursorPage.limitFor(size));
+        return CursorPage.of(rows, size, summary -> new PageCursor(summary.getCreatedAt(), summary.getId()),
+                summary -> summary);
+    }
+    
     /**
      * Create a new order.
      */
@@ -94,7 +148,7 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", request.getCustomerId()));
         
         // Generate order number
-        String orderNumber = generateOrderNumber();
+        String orderNumber = orderNumberAllocator.nextOrderNumber();
         
         Order order = Order.builder()
                 .orderNumber(orderNumber)
@@ -109,20 +163,32 @@ public class OrderService {
                 .totalAmount(BigDecimal.ZERO)
                 .build();
         
-        // Validate and add order items
-        BigDecimal total = BigDecimal.ZERO;
+        // Sum requested quantities per product (a product may appear on several lines)
+        Map<Long, Integer> requestedQuantities = new LinkedHashMap<>();
         for (CreateOrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", itemRequest.getProductId()));
-            
-            // Check stock availability
-            if (product.getQuantityInStock() < itemRequest.getQuantity()) {
-                throw new InsufficientStockException(
-                        product.getName(),
-                        itemRequest.getQuantity(),
-                        product.getQuantityInStock()
-                );
+            requestedQuantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
+        
+        // Load every referenced product in a single query instead of one lookup per line
+        Map<Long, Product> products = productRepository.findAllById(requestedQuantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        // Validate against the loaded snapshot to fail fast before touching any rows
+        requestedQuantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new ResourceNotFoundException("Product", "id", productId);
+            }
+            int available = hotStockReservations.availableStock(product);
+            if (available < quantity) {
+                throw new InsufficientStockException(product.getName(), quantity, available);
             }
+        });
+        
+        // Add order items
+        BigDecimal total = BigDecimal.ZERO;
+        for (CreateOrderItemRequest itemRequest : request.getItems()) {
+            Product product = products.get(itemRequest.getProductId());
             
             OrderItem orderItem = OrderItem.builder()
                     .product(product)
@@ -133,14 +199,24 @@ public class OrderService {
             
             order.addOrderItem(orderItem);
             total = total.add(orderItem.getTotalPrice());
-            
-            // Reserve stock
-            product.setQuantityInStock(product.getQuantityInStock() - itemRequest.getQuantity());
-            productRepository.save(product);
         }
         
+        // Reserve stock with guarded updates (hot products from memory); a concurrent order may have taken it since the read
+        List<Long> unavailable = hotStockReservations.reserve(requestedQuantities);
+        if (!unavailable.isEmpty()) {
+            Product product = products.get(unavailable.get(0));
+            throw new InsufficientStockException(String.format(
+                    "Insufficient stock for '%s'. Requested: %d",
+                    product.getName(), requestedQuantities.get(product.getId())));
+        }
+        productLookupCache.invalidateAll(requestedQuantities.keySet());
+        eventPublisher.publishEvent(new ProductsChangedEvent(List.copyOf(requestedQuantities.keySet())));
+        
         order.setTotalAmount(total);
         Order savedOrder = orderRepository.save(order);
+        inventoryLedger.recordAll(negated(requestedQuantities), TransactionType.SALE,
+                savedOrder.getId(), "Order " + orderNumber + " placed", null);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.created(total));
         
         log.info("Order created with number: {}", savedOrder.getOrderNumber());
         
@@ -156,7 +232,8 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
         
-        validateStatusTransition(order.getStatus(), request.getStatus());
+        OrderStatus previousStatus = order.getStatus();
+        validateStatusTransition(previousStatus, request.getStatus());
         
         order.setStatus(request.getStatus());
         
@@ -177,6 +254,8 @@ public class OrderService {
         }
         
         Order updatedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.single(
+                previousStatus, request.getStatus(), order.getTotalAmount()));
         log.info("Order {} status updated to {}", orderId, request.getStatus());
         
         return mapToDTO(updatedOrder);
@@ -195,27 +274,20 @@ public class OrderService {
             throw new BadRequestException("Cannot cancel order that has already been shipped or delivered");
         }
         
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         order.setNotes(reason);
         
         restoreStock(order);
         
         Order cancelledOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.single(
+                previousStatus, OrderStatus.CANCELLED, order.getTotalAmount()));
         log.info("Order {} cancelled", orderId);
         
         return mapToDTO(cancelledOrder);
     }
     
-    /**
-     * Generate unique order number.
-     */
-    private String generateOrderNumber() {
-        String datePrefix = "ORD-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-";
-        Integer maxSequence = orderRepository.getMaxOrderSequence(datePrefix);
-        int nextSequence = (maxSequence != null ? maxSequence : 0) + 1;
-        return datePrefix + String.format("%06d", nextSequence);
-    }
-    
     /**
      * Validate order status transition.
      */
@@ -242,11 +314,21 @@ public class OrderService {
      * Restore stock when order is cancelled.
      */
     private void restoreStock(Order order) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            product.setQuantityInStock(product.getQuantityInStock() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        productRepository.releaseStock(quantities);
+        inventoryLedger.recordAll(quantities, TransactionType.RETURN,
+                order.getId(), "Order " + order.getOrderNumber() + " cancelled", null);
+        productLookupCache.invalidateAll(quantities.keySet());
+        eventPublisher.publishEvent(new ProductsChangedEvent(List.copyOf(quantities.keySet())));
+    }
+    
+    private static Map<Long, Integer> negated(Map<Long, Integer> quantities) {
+        Map<Long, Integer> negated = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> negated.put(productId, -quantity));
+        return negated;
     }
     
     /**
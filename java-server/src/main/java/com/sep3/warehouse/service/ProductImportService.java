@@ -0,0 +1,236 @@
+package com.sep3.warehouse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.dto.product.ImportProductRequest;
+import com.sep3.warehouse.dto.product.ProductImportResult;
+import com.sep3.warehouse.entity.Category;
+import com.sep3.warehouse.entity.TransactionType;
+import com.sep3.warehouse.event.ProductsChangedEvent;
+import com.sep3.warehouse.exception.BadRequestException;
+import com.sep3.warehouse.importer.ProductImportReader;
+import com.sep3.warehouse.ledger.InventoryLedger;
+import com.sep3.warehouse.repository.CategoryRepository;
+import com.sep3.warehouse.repository.ProductImportRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from a streamed CSV or JSON file.
+ * 
+ * Rows are parsed one at a time and validated; valid rows are collected into
+ * chunks and each chunk is upserted by SKU in one JDBC batch and its own
+ * transaction. Categories are resolved from a map loaded once per import.
+ * Invalid rows are reported with their row number and do not stop the import.
+ * When a chunk is rejected by the database, its rows are retried one by one so
+ * only the offending rows fail. Within a file the last row for a SKU wins;
+ * the rows it replaces are counted as imported.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+    
+    private final ProductImportRepository productImportRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductLookupCache productLookupCache;
+    private final InventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+    
+    public ProductImportService(ProductImportRepository productImportRepository,
+                                CategoryRepository categoryRepository,
+                                ProductLookupCache productLookupCache,
+                                InventoryLedger inventoryLedger,
+                                ApplicationEventPublisher eventPublisher,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${warehouse.product-import.chunk-size:1000}") int chunkSize,
+                                @Value("${warehouse.product-import.max-errors:1000}") int maxErrors) {
+        this.productImportRepository = productImportRepository;
+        this.categoryRepository = categoryRepository;
+        this.productLookupCache = productLookupCache;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+    
+    /**
+     * Import all products in the given file, committing chunk by chunk.
+     */
+    public ProductImportResult importProducts(String contentType, InputStream in) {
+        long started = System.currentTimeMillis();
+        Import run = new Import(loadCategories());
+        
+        try (ProductImportReader reader = ProductImportReader.open(contentType, in, objectMapper)) {
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                run.totalRows++;
+                String error = row.error() != null ? row.error() : validate(row.request(), run.categories);
+                if (error != null) {
+                    run.fail(row.number(), row.request() != null ? row.request().getSku() : null, error);
+                    continue;
+                }
+                // Last row wins; the same SKU twice in one batch would make the upsert fail
+                if (run.chunk.remove(row.request().getSku()) != null) {
+                    run.imported++;
+                }
+                run.chunk.put(row.request().getSku(), row);
+                if (run.chunk.size() >= chunkSize) {
+                    flush(run);
+                }
+            }
+            flush(run);
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import file: " + e.getMessage());
+        }
+        
+        long duration = System.currentTimeMillis() - started;
+        log.info("Product import finished: {} rows, {} imported, {} failed in {} ms",
+                run.totalRows, run.imported, run.failed, duration);
+        return ProductImportResult.builder()
+                .totalRows(run.totalRows)
+                .imported(run.imported)
+                .failed(run.failed)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .durationMs(duration)
+                .build();
+    }
+    
+    /**
+     * Upsert the pending chunk; on a database error fall back to one row per transaction.
+     */
+    private void flush(Import run) {
+        if (run.chunk.isEmpty()) {
+            return;
+        }
+        List<ProductImportReader.Row> rows = new ArrayList<>(run.chunk.values());
+        run.chunk.clear();
+        
+        try {
+            upsert(rows);
+            run.imported += rows.size();
+        } catch (DataAccessException e) {
+            log.debug("Import chunk rejected, retrying {} rows individually", rows.size(), e);
+            for (ProductImportReader.Row row : rows) {
+                try {
+                    upsert(List.of(row));
+                    run.imported++;
+                } catch (DataAccessException rowError) {
+                    run.fail(row.number(), row.request().getSku(),
+                            NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+    
+    private void upsert(List<ProductImportReader.Row> rows) {
+        List<ImportProductRequest> products = rows.stream().map(ProductImportReader.Row::request).toList();
+        List<String> skus = products.stream().map(ImportProductRequest::getSku).toList();
+        transactionTemplate.executeWithoutResult(tx -> {
+            productImportRepository.upsert(products);
+            // New products bring their initial stock; updated ones keep theirs untouched
+            inventoryLedger.recordAll(productImportRepository.findInsertedStock(skus),
+                    TransactionType.PURCHASE, null, "Initial stock", null);
+            List<Long> ids = productImportRepository.findIdsBySku(skus);
+            productLookupCache.invalidateAll(ids);
+            eventPublisher.publishEvent(new ProductsChangedEvent(ids));
+        });
+    }
+    
+    /**
+     * Bean validation plus category resolution; returns the error message or null.
+     * A category given by name is resolved into the request's category id.
+     */
+    private String validate(ImportProductRequest request, Categories categories) {
+        Set<ConstraintViolation<ImportProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (request.getCategoryId() != null) {
+            return categories.ids().contains(request.getCategoryId())
+                    ? null
+                    : "Category not found with id: '" + request.getCategoryId() + "'";
+        }
+        if (request.getCategoryName() != null && !request.getCategoryName().isBlank()) {
+            Long categoryId = categories.idsByName().get(request.getCategoryName().trim().toLowerCase(Locale.ROOT));
+            if (categoryId == null) {
+                return "Category not found with name: '" + request.getCategoryName() + "'";
+            }
+            request.setCategoryId(categoryId);
+        }
+        return null;
+    }
+    
+    private Categories loadCategories() {
+        Map<String, Long> idsByName = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        for (Category category : categoryRepository.findAll()) {
+            idsByName.put(category.getName().toLowerCase(Locale.ROOT), category.getId());
+            ids.add(category.getId());
+        }
+        return new Categories(idsByName, ids);
+    }
+    
+    private record Categories(Map<String, Long> idsByName, Set<Long> ids) {
+    }
+    
+    /**
+     * Progress of one import; errors beyond the configured maximum are only counted.
+     */
+    private final class Import {
+        
+        private final Categories categories;
+        private final LinkedHashMap<String, ProductImportReader.Row> chunk = new LinkedHashMap<>();
+        private final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long imported;
+        private long failed;
+        
+        Import(Categories categories) {
+            this.categories = categories;
+        }
+        
+        void fail(long row, String sku, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(ProductImportResult.RowError.builder()
+                        .row(row)
+                        .sku(sku)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
@@ -1,21 +1,44 @@
 package com.sep3.warehouse.service;
 
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.dto.common.CursorPage;
 import com.sep3.warehouse.dto.product.CreateProductRequest;
 import com.sep3.warehouse.dto.product.ProductDTO;
+import com.sep3.warehouse.dto.product.StockAdjustmentRequest;
+import com.sep3.warehouse.dto.product.StockAdjustmentResult;
 import com.sep3.warehouse.dto.product.UpdateProductRequest;
 import com.sep3.warehouse.entity.Category;
 import com.sep3.warehouse.entity.Product;
+import com.sep3.warehouse.entity.TransactionType;
+import com.sep3.warehouse.entity.User;
+import com.sep3.warehouse.event.ProductsChangedEvent;
+import com.sep3.warehouse.exception.BadRequestException;
 import com.sep3.warehouse.exception.DuplicateResourceException;
+import com.sep3.warehouse.exception.InsufficientStockException;
 import com.sep3.warehouse.exception.ResourceNotFoundException;
+import com.sep3.warehouse.ledger.InventoryLedger;
 import com.sep3.warehouse.repository.CategoryRepository;
 import com.sep3.warehouse.repository.ProductRepository;
+import com.sep3.warehouse.repository.UserRepository;
+import com.sep3.warehouse.reservation.HotStockReservations;
+import com.sep3.warehouse.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing products/inventory.
@@ -26,8 +49,17 @@ import java.util.List;
 @Transactional
 public class ProductService {
     
+    private static final Pattern SEARCH_TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Shorter words match whole words only; a one- or two-letter prefix expands to most of the index
+    private static final int MIN_PREFIX_LENGTH = 3;
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final UserRepository userRepository;
+    private final ProductLookupCache productLookupCache;
+    private final InventoryLedger inventoryLedger;
+    private final HotStockReservations hotStockReservations;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Get all active products with pagination.
@@ -39,6 +71,17 @@ public class ProductService {
                 .map(this::mapToDTO);
     }
     
+    /**
+     * Get active products after a cursor (keyset pagination).
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> getProductsAfter(String after, int size) {
+        log.debug("Fetching active products after cursor");
+        PageCursor cursor = PageCursor.decode(after);
+        List<Product> rows = productRepository.findActiveAfter(cursor.createdAt(), cursor.id(), CursorPage.limitFor(size));
+        return CursorPage.of(rows, size, product -> new PageCursor(product.getCreatedAt(), product.getId()), this::mapToDTO);
+    }
+    
     /**
      * Get product by ID.
      */
@@ -51,23 +94,47 @@ public class ProductService {
     }
     
     /**
-     * Get product by SKU.
+     * Get product by SKU. Served from the lookup cache when possible.
      */
     @Transactional(readOnly = true)
     public ProductDTO getProductBySku(String sku) {
-        log.debug("Fetching product with SKU: {}", sku);
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "sku", sku));
-        return mapToDTO(product);
+        return productLookupCache.getBySku(sku, () -> {
+            log.debug("Fetching product with SKU: {}", sku);
+            Product product = productRepository.findBySku(sku)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "sku", sku));
+            return mapToDTO(product);
+        });
+    }
+    
+    /**
+     * Get product by barcode. Served from the lookup cache when possible.
+     */
+    @Transactional(readOnly = true)
+    public ProductDTO getProductByBarcode(String barcode) {
+        return productLookupCache.getByBarcode(barcode, () -> {
+            log.debug("Fetching product with barcode: {}", barcode);
+            Product product = productRepository.findByBarcode(barcode)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "barcode", barcode));
+            return mapToDTO(product);
+        });
     }
     
     /**
      * Search products by name, SKU, or description.
+     * Every word of the query must match as a prefix (short words as whole words); results are
+     * ordered by relevance among the first {@link ProductRepository#SEARCH_CANDIDATES} matches,
+     * and the total is capped there too.
      */
     @Transactional(readOnly = true)
     public Page<ProductDTO> searchProducts(String query, Pageable pageable) {
         log.debug("Searching products with query: {}", query);
-        return productRepository.search(query, pageable)
+        String tsquery = toPrefixTsQuery(query);
+        if (tsquery.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        // Relevance ordering is fixed by the query, so any requested sort is ignored
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return productRepository.search(tsquery, unsorted)
                 .map(this::mapToDTO);
     }
     
@@ -89,6 +156,8 @@ public class ProductService {
         log.debug("Fetching low stock products");
         return productRepository.findLowStockProducts().stream()
                 .map(this::mapToDTO)
+                // The row of a hot product excludes its leased units
+                .filter(ProductDTO::getIsLowStock)
                 .toList();
     }
     
@@ -125,15 +194,20 @@ public class ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
+        if (savedProduct.getQuantityInStock() > 0) {
+            inventoryLedger.record(savedProduct.getId(), TransactionType.PURCHASE, savedProduct.getQuantityInStock(),
+                    null, "Initial stock", null);
+        }
+        eventPublisher.publishEvent(ProductsChangedEvent.of(savedProduct.getId()));
         log.info("Product created with id: {}", savedProduct.getId());
         
         return mapToDTO(savedProduct);
     }
     
     /**
-     * Update an existing product.
+     * Update an existing product; a stock change is recorded as an ADJUSTMENT.
      */
-    public ProductDTO updateProduct(Long id, UpdateProductRequest request) {
+    public ProductDTO updateProduct(Long id, UpdateProductRequest request, String username) {
         log.info("Updating product with id: {}", id);
         
         Product product = productRepository.findById(id)
@@ -151,9 +225,6 @@ public class ProductService {
         if (request.getCostPrice() != null) {
             product.setCostPrice(request.getCostPrice());
         }
-        if (request.getQuantityInStock() != null) {
-            product.setQuantityInStock(request.getQuantityInStock());
-        }
         if (request.getMinimumStockLevel() != null) {
             product.setMinimumStockLevel(request.getMinimumStockLevel());
         }
@@ -182,6 +253,22 @@ public class ProductService {
         }
         
         Product updatedProduct = productRepository.save(product);
+        
+        // The requested stock is applied as a delta from the loaded quantity (with leased
+        // units), so orders reserved since the load are kept rather than overwritten
+        if (request.getQuantityInStock() != null) {
+            int change = request.getQuantityInStock() - product.getQuantityInStock() - hotStockReservations.heldStock(id);
+            if (change != 0) {
+                if (!hotStockReservations.applyStockChange(id, change)) {
+                    throw new BadRequestException("Stock cannot be negative");
+                }
+                inventoryLedger.record(id, TransactionType.ADJUSTMENT, change, null, "Product edited", findUserId(username));
+                updatedProduct = productRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+            }
+        }
+        productLookupCache.invalidate(id);
+        eventPublisher.publishEvent(ProductsChangedEvent.of(id));
         log.info("Product updated: {}", updatedProduct.getId());
         
         return mapToDTO(updatedProduct);
@@ -198,36 +285,152 @@ public class ProductService {
         
         product.setIsActive(false);
         productRepository.save(product);
+        productLookupCache.invalidate(id);
+        eventPublisher.publishEvent(ProductsChangedEvent.of(id));
         
         log.info("Product soft-deleted: {}", id);
     }
     
     /**
-     * Update product stock quantity.
+     * Reserve a product's stock from in-memory counters, leased in blocks of
+     * the given size, so flash-sale orders do not queue on its row lock.
      */
-    public ProductDTO updateStock(Long id, int quantityChange) {
+    public void enableHotStock(Long id, int blockSize) {
+        if (blockSize <= 0) {
+            throw new BadRequestException("Block size must be positive");
+        }
+        if (!productRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Product", "id", id);
+        }
+        hotStockReservations.enable(id, blockSize);
+    }
+    
+    /**
+     * Go back to reserving a product's stock on its row; leased units are returned.
+     */
+    public void disableHotStock(Long id) {
+        if (!hotStockReservations.isHot(id)) {
+            throw new ResourceNotFoundException("Hot product", "id", id);
+        }
+        hotStockReservations.disable(id);
+    }
+    
+    /**
+     * Update product stock quantity and record the change as an ADJUSTMENT.
+     */
+    public ProductDTO updateStock(Long id, int quantityChange, String username) {
         log.info("Updating stock for product {}: change={}", id, quantityChange);
         
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
-        
-        int newQuantity = product.getQuantityInStock() + quantityChange;
-        if (newQuantity < 0) {
+        // Single guarded UPDATE - no read-modify-write race with concurrent orders
+        if (!hotStockReservations.applyStockChange(id, quantityChange)) {
+            if (!productRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Product", "id", id);
+            }
             throw new IllegalArgumentException("Stock cannot be negative");
         }
+        if (quantityChange != 0) {
+            inventoryLedger.record(id, TransactionType.ADJUSTMENT, quantityChange, null, null, findUserId(username));
+        }
+        productLookupCache.invalidate(id);
+        eventPublisher.publishEvent(ProductsChangedEvent.of(id));
         
-        product.setQuantityInStock(newQuantity);
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
         
-        log.info("Stock updated for product {}: new quantity={}", id, newQuantity);
+        log.info("Stock updated for product {}: new quantity={}", id, updatedProduct.getQuantityInStock());
         
         return mapToDTO(updatedProduct);
     }
     
     /**
-     * Map Product entity to DTO.
+     * Apply many stock changes at once, all or nothing.
+     * Lines for the same product are summed. The guarded updates are sent as
+     * one JDBC batch and the ADJUSTMENT ledger rows as another; if any product
+     * is missing or would go below zero, nothing is applied.
+     */
+    public StockAdjustmentResult adjustStock(StockAdjustmentRequest request, String username) {
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        for (StockAdjustmentRequest.Line line : request.getAdjustments()) {
+            changes.merge(line.getProductId(), line.getQuantityChange(), Integer::sum);
+        }
+        log.info("Adjusting stock for {} products", changes.size());
+        
+        Map<Long, Integer> nonZero = new LinkedHashMap<>(changes);
+        nonZero.values().removeIf(change -> change == 0);
+        
+        List<Long> rejected = hotStockReservations.adjustStock(nonZero);
+        if (!rejected.isEmpty()) {
+            // Throwing rolls back the updates that did apply
+            throw rejectedAdjustment(rejected, changes);
+        }
+        inventoryLedger.recordAll(nonZero, TransactionType.ADJUSTMENT, null, request.getNotes(), findUserId(username));
+        
+        List<StockAdjustmentResult.ProductStock> stock = productRepository.findStock(changes.keySet());
+        stock.forEach(product -> product.setQuantityInStock(
+                product.getQuantityInStock() + hotStockReservations.heldStock(product.getProductId())));
+        if (stock.size() < changes.size()) {
+            Set<Long> found = stock.stream()
+                    .map(StockAdjustmentResult.ProductStock::getProductId)
+                    .collect(Collectors.toSet());
+            Long missing = changes.keySet().stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+            throw new ResourceNotFoundException("Product", "id", missing);
+        }
+        
+        productLookupCache.invalidateAll(nonZero.keySet());
+        eventPublisher.publishEvent(new ProductsChangedEvent(List.copyOf(nonZero.keySet())));
+        log.info("Stock adjusted for {} products", nonZero.size());
+        
+        return StockAdjustmentResult.builder()
+                .adjusted(nonZero.size())
+                .products(stock.stream()
+                        .sorted(Comparator.comparing(StockAdjustmentResult.ProductStock::getProductId))
+                        .toList())
+                .build();
+    }
+    
+    /**
+     * Exception for the first rejected line of a bulk adjustment: missing product or insufficient stock.
+     */
+    private RuntimeException rejectedAdjustment(List<Long> rejected, Map<Long, Integer> changes) {
+        Map<Long, StockAdjustmentResult.ProductStock> existing = productRepository.findStock(rejected).stream()
+                .collect(Collectors.toMap(StockAdjustmentResult.ProductStock::getProductId, stock -> stock));
+        Long first = rejected.get(0);
+        StockAdjustmentResult.ProductStock stock = existing.get(first);
+        if (stock == null) {
+            return new ResourceNotFoundException("Product", "id", first);
+        }
+        // The guarded update did not apply, so this is still the stock before the adjustment
+        return new InsufficientStockException(String.format(
+                "Stock of '%s' cannot go below zero: change %d, available %d (%d products rejected)",
+                stock.getSku(), changes.get(first), stock.getQuantityInStock() + hotStockReservations.heldStock(first),
+                rejected.size()));
+    }
+    
+    private Long findUserId(String username) {
+        return username != null
+                ? userRepository.findByUsername(username).map(User::getId).orElse(null)
+                : null;
+    }
+    
+    /**
+     * Turn free text into a to_tsquery expression ("elec:* & 001:* & a").
+     * Only letters and digits survive, so user input can never break the tsquery syntax.
+     */
+    private static String toPrefixTsQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        return Arrays.stream(SEARCH_TOKEN_SEPARATOR.split(query.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .map(token -> token.length() >= MIN_PREFIX_LENGTH ? token + ":*" : token)
+                .collect(Collectors.joining(" & "));
+    }
+    
+    /**
+     * Map Product entity to DTO; the stock includes units leased by hot stock reservations.
      */
     private ProductDTO mapToDTO(Product product) {
+        int stock = product.getQuantityInStock() + hotStockReservations.heldStock(product.getId());
         return ProductDTO.builder()
                 .id(product.getId())
                 .sku(product.getSku())
@@ -237,7 +440,7 @@ public class ProductService {
                 .categoryName(product.getCategory() != null ? product.getCategory().getName() : null)
                 .price(product.getPrice())
                 .costPrice(product.getCostPrice())
-                .quantityInStock(product.getQuantityInStock())
+                .quantityInStock(stock)
                 .minimumStockLevel(product.getMinimumStockLevel())
                 .maximumStockLevel(product.getMaximumStockLevel())
                 .weightKg(product.getWeightKg())
@@ -245,7 +448,7 @@ public class ProductService {
                 .location(product.getLocation())
                 .barcode(product.getBarcode())
                 .isActive(product.getIsActive())
-                .isLowStock(product.isLowStock())
+                .isLowStock(product.getMinimumStockLevel() != null && stock <= product.getMinimumStockLevel())
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
                 .build();
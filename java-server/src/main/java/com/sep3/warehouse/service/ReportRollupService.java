@@ -0,0 +1,70 @@
+package com.sep3.warehouse.service;
+
+import com.sep3.warehouse.repository.ReportRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the reporting rollup tables current.
+ * 
+ * Daily product sales are refreshed incrementally: each run takes the orders
+ * changed since the stored watermark, recomputes only their delivery days and
+ * advances the watermark. The refresh stops lag-seconds short of the database
+ * clock so rows from transactions still in flight are picked up by the next
+ * run. The watermark row is locked for the whole refresh, so several server
+ * instances never refresh at the same time.
+ * 
+ * Category inventory is snapshotted on a cron schedule; the snapshot for the
+ * current day is replaced on every run.
+ */
+@Service
+@Slf4j
+public class ReportRollupService {
+    
+    static final String DAILY_SALES = "daily_product_sales";
+    
+    private final ReportRollupRepository rollupRepository;
+    private final long lagSeconds;
+    
+    public ReportRollupService(ReportRollupRepository rollupRepository,
+                               @Value("${warehouse.rollup.lag-seconds:300}") long lagSeconds) {
+        this.rollupRepository = rollupRepository;
+        this.lagSeconds = lagSeconds;
+    }
+    
+    /**
+     * Fold orders changed since the watermark into daily_product_sales.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.rollup.sales-refresh-interval-ms:60000}")
+    @Transactional
+    public void refreshDailySales() {
+        LocalDateTime watermark = rollupRepository.lockWatermark(DAILY_SALES);
+        LocalDateTime upTo = rollupRepository.currentTimeMinus(lagSeconds);
+        if (!upTo.isAfter(watermark)) {
+            return;
+        }
+        
+        List<LocalDate> days = rollupRepository.findSalesDaysChanged(watermark, upTo);
+        if (!days.isEmpty()) {
+            rollupRepository.refreshSalesDays(days);
+            log.info("Refreshed daily sales for {} day(s) up to {}", days.size(), upTo);
+        }
+        rollupRepository.saveWatermark(DAILY_SALES, upTo);
+    }
+    
+    /**
+     * Snapshot active stock per category for today.
+     */
+    @Scheduled(cron = "${warehouse.rollup.inventory-snapshot-cron:0 0 * * * *}")
+    @Transactional
+    public void snapshotCategoryInventory() {
+        int categories = rollupRepository.snapshotCategoryInventory(LocalDate.now());
+        log.info("Snapshotted inventory for {} categories", categories);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sep3.warehouse.service;
+
+import com.sep3.warehouse.dto.report.CategoryInventorySnapshotDTO;
+import com.sep3.warehouse.dto.report.DashboardDTO;
+import com.sep3.warehouse.dto.report.SalesReportDTO;
+import com.sep3.warehouse.exception.BadRequestException;
+import com.sep3.warehouse.metrics.DashboardMetrics;
+import com.sep3.warehouse.repository.ReportRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service for reporting and dashboard KPIs.
+ * Dashboard figures come from the incrementally maintained {@link DashboardMetrics},
+ * so a refresh costs no database work regardless of catalog or order history size.
+ * Date-range reports read the rollup tables kept by {@link ReportRollupService}, so
+ * their cost depends on the number of days, not on the number of orders.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportService {
+    
+    private static final int TOP_PRODUCTS = 10;
+    
+    private final DashboardMetrics dashboardMetrics;
+    private final ReportRollupRepository rollupRepository;
+    
+    /**
+     * Get all dashboard KPIs in one response.
+     */
+    public DashboardDTO getDashboard() {
+        log.debug("Building dashboard report");
+        return dashboardMetrics.getDashboard();
+    }
+    
+    /**
+     * Get delivered sales between two dates (inclusive) from the daily sales rollup.
+     */
+    @Transactional(readOnly = true)
+    public SalesReportDTO getSalesReport(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        log.debug("Building sales report from {} to {}", from, to);
+        
+        List<SalesReportDTO.DailySales> daily = rollupRepository.findDailySales(from, to);
+        return SalesReportDTO.builder()
+                .from(from)
+                .to(to)
+                .totalUnits(daily.stream().mapToLong(SalesReportDTO.DailySales::getUnits).sum())
+                .totalRevenue(rollupRepository.getRevenue(from, to))
+                .daily(daily)
+                .topProducts(rollupRepository.findTopSelling(from, to, TOP_PRODUCTS))
+                .build();
+    }
+    
+    /**
+     * Get category inventory snapshots between two dates (inclusive).
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryInventorySnapshotDTO> getInventoryHistory(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        log.debug("Fetching inventory snapshots from {} to {}", from, to);
+        return rollupRepository.findInventorySnapshots(from, to);
+    }
+    
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+    }
+}
@@ -1,39 +1,232 @@
 package com.sep3.warehouse.service;
 
 import com.sep3.warehouse.dto.shipment.CreateShipmentRequest;
+import com.sep3.warehouse.dto.shipment.DispatchWaveResult;
 import com.sep3.warehouse.dto.shipment.ShipmentDTO;
 import com.sep3.warehouse.entity.Order;
 import com.sep3.warehouse.entity.OrderStatus;
+import com.sep3.warehouse.event.OrderStatusChangedEvent;
 import com.sep3.warehouse.exception.BadRequestException;
 import com.sep3.warehouse.exception.ResourceNotFoundException;
+import com.sep3.warehouse.exception.ServiceUnavailableException;
 import com.sep3.warehouse.grpc.ShipmentGrpcClient;
+import com.sep3.warehouse.grpc.ShipmentStatusProjection;
+import com.sep3.warehouse.repository.OrderItemRepository;
 import com.sep3.warehouse.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for shipment operations.
  * This service acts as a bridge between the REST API and the gRPC client
  * that communicates with the C# Shipment microservice.
+ * 
+ * gRPC calls are asynchronous; order updates that depend on their result run
+ * in their own short transaction once the call completes. Reads are served from
+ * the streamed {@link ShipmentStatusProjection} when it knows the shipment.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class ShipmentService {
     
     private final ShipmentGrpcClient shipmentGrpcClient;
+    private final ShipmentStatusProjection shipmentProjection;
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Well past the CreateShipments deadline, so only a wave whose server died leaves claims to expire
+    private static final Duration DISPATCH_CLAIM_TIMEOUT = Duration.ofMinutes(5);
     
     /**
      * Create a shipment for an order.
      */
-    public ShipmentDTO createShipment(Long orderId) {
+    public CompletableFuture<ShipmentDTO> createShipment(Long orderId) {
         log.info("Creating shipment for order: {}", orderId);
         
+        CreateShipmentRequest request = transactionTemplate.execute(status -> buildShipmentRequest(orderId));
+        
+        return shipmentGrpcClient.createShipment(request)
+                .thenApply(shipmentProjection::record)
+                .thenApply(shipment -> {
+                    // Update order status to SHIPPED
+                    transactionTemplate.executeWithoutResult(status ->
+                            transitionOrder(orderId, OrderStatus.READY_FOR_SHIPMENT, OrderStatus.SHIPPED));
+                    log.info("Shipment created with tracking number: {}", shipment.getTrackingNumber());
+                    return shipment;
+                });
+    }
+    
+    /**
+     * Create shipments for up to limit READY_FOR_SHIPMENT orders (oldest first) in one
+     * CreateShipments call, then mark the shipped orders SHIPPED in a single update.
+     * Orders are claimed in the database first, so waves started concurrently on any
+     * instance dispatch disjoint orders.
+     */
+    public CompletableFuture<DispatchWaveResult> dispatchWave(int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+        
+        Map<Long, String> orderNumbers = new HashMap<>();
+        List<CreateShipmentRequest> requests = transactionTemplate.execute(status ->
+                claimWave(limit, orderNumbers));
+        log.info("Dispatching wave of {} orders", requests.size());
+        
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(DispatchWaveResult.builder()
+                    .results(List.of())
+                    .build());
+        }
+        
+        return shipmentGrpcClient.createShipments(requests)
+                .thenApply(results -> completeWave(results, orderNumbers))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        // Nothing was recorded, so the orders go straight back to the next wave
+                        releaseClaims(List.copyOf(orderNumbers.keySet()));
+                    }
+                });
+    }
+    
+    /**
+     * Get shipment by ID.
+     */
+    public CompletableFuture<ShipmentDTO> getShipment(Long shipmentId) {
+        log.debug("Getting shipment: {}", shipmentId);
+        return shipmentProjection.findById(shipmentId)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> shipmentGrpcClient.getShipment(shipmentId)
+                        .thenApply(shipmentProjection::record)
+                        .exceptionallyCompose(error -> lastKnown(error, shipmentProjection.findLastKnownById(shipmentId))));
+    }
+    
+    /**
+     * Get shipment by order ID.
+     */
+    public CompletableFuture<ShipmentDTO> getShipmentByOrderId(Long orderId) {
+        log.debug("Getting shipment for order: {}", orderId);
+        return shipmentProjection.findByOrderId(orderId)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> shipmentGrpcClient.getShipmentByOrderId(orderId)
+                        .thenApply(shipmentProjection::record)
+                        .exceptionallyCompose(error -> lastKnown(error, shipmentProjection.findLastKnownByOrderId(orderId))));
+    }
+    
+    /**
+     * Update shipment status.
+     */
+    public CompletableFuture<ShipmentDTO> updateShipmentStatus(Long shipmentId, String status, String location, String notes) {
+        log.info("Updating shipment {} status to: {}", shipmentId, status);
+        
+        // Apply the order transition (e.g. DELIVERED) right away as well, so it does not depend on
+        // the update stream being up; the stream applies it again, which is a guarded no-op
+        return shipmentGrpcClient.updateShipmentStatus(shipmentId, status, location, notes)
+                .thenApply(shipmentProjection::record)
+                .thenCompose(updatedShipment -> applyToOrder(updatedShipment));
+    }
+    
+    /**
+     * Get all shipments.
+     */
+    public CompletableFuture<List<ShipmentDTO>> getAllShipments(int page, int size, String statusFilter) {
+        log.debug("Getting all shipments");
+        return shipmentGrpcClient.getAllShipments(page, size, statusFilter);
+    }
+    
+    /**
+     * Cancel a shipment.
+     */
+    public CompletableFuture<ShipmentDTO> cancelShipment(Long shipmentId, String reason) {
+        log.info("Cancelling shipment: {}", shipmentId);
+        
+        // Send the order back to READY_FOR_SHIPMENT right away, the operator is waiting on it
+        return shipmentGrpcClient.cancelShipment(shipmentId, reason)
+                .thenApply(shipmentProjection::record)
+                .thenCompose(cancelledShipment -> applyToOrder(cancelledShipment));
+    }
+    
+    /**
+     * Apply a shipment status change to its order. Idempotent: each transition
+     * only happens while the order is still in the expected status, and a
+     * cancellation only while the shipment is still the order's current one.
+     * Completes exceptionally if the transition could not be applied.
+     */
+    public CompletableFuture<Void> onShipmentStatusChanged(Long orderId, Long shipmentId, String shipmentStatus) {
+        return switch (shipmentStatus) {
+            // Runs on the calling thread; a failure completes the future exceptionally
+            case "DELIVERED" -> CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(tx ->
+                    transitionOrder(orderId, OrderStatus.SHIPPED, OrderStatus.DELIVERED)), Runnable::run);
+            case "CANCELLED" -> isCurrentShipment(orderId, shipmentId).thenAccept(current -> {
+                if (current) {
+                    transactionTemplate.executeWithoutResult(tx ->
+                            transitionOrder(orderId, OrderStatus.SHIPPED, OrderStatus.READY_FOR_SHIPMENT));
+                }
+            });
+            default -> CompletableFuture.completedFuture(null);
+        };
+    }
+    
+    /**
+     * Apply the status an RPC returned to the shipment's order. A failure is only
+     * logged: the shipment changed either way, and the update stream applies the
+     * transition again.
+     */
+    private CompletableFuture<ShipmentDTO> applyToOrder(ShipmentDTO shipment) {
+        if (shipment.getOrderId() == null) {
+            return CompletableFuture.completedFuture(shipment);
+        }
+        return onShipmentStatusChanged(shipment.getOrderId(), shipment.getId(), shipment.getStatus())
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        log.warn("Could not update order {} after shipment {} became {}",
+                                shipment.getOrderId(), shipment.getId(), shipment.getStatus(), error);
+                    }
+                    return shipment;
+                });
+    }
+    
+    /**
+     * Whether the shipment is the newest one for its order; an older cancelled
+     * shipment must not send back an order that has been shipped again since.
+     * Shipment ids only grow, so a newer shipment the projection knows of settles
+     * it without a call; otherwise the shipment service is asked, without blocking.
+     */
+    private CompletableFuture<Boolean> isCurrentShipment(Long orderId, Long shipmentId) {
+        Optional<Long> newest = shipmentProjection.findNewestShipmentId(orderId)
+                .filter(id -> id > shipmentId);
+        CompletableFuture<Long> current = newest.isPresent()
+                ? CompletableFuture.completedFuture(newest.get())
+                : shipmentGrpcClient.getShipmentByOrderId(orderId).thenApply(ShipmentDTO::getId);
+        return current.thenApply(currentId -> {
+            boolean isCurrent = shipmentId.equals(currentId);
+            if (!isCurrent) {
+                log.debug("Ignoring cancellation of shipment {}: order {} now has shipment {}",
+                        shipmentId, orderId, currentId);
+            }
+            return isCurrent;
+        });
+    }
+    
+    /**
+     * Validate the order and build the gRPC request for it.
+     */
+    private CreateShipmentRequest buildShipmentRequest(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
         
@@ -51,99 +244,144 @@ public class ShipmentService {
                 })
                 .sum();
         
-        CreateShipmentRequest request = CreateShipmentRequest.builder()
-                .orderId(orderId)
+        return toShipmentRequest(order, totalWeight);
+    }
+    
+    private CreateShipmentRequest toShipmentRequest(Order order, double weightKg) {
+        return CreateShipmentRequest.builder()
+                .orderId(order.getId())
                 .recipientName(order.getCustomer().getFullName())
                 .recipientAddress(order.getShippingAddress())
                 .recipientCity(order.getShippingCity())
                 .recipientPostalCode(order.getShippingPostalCode())
                 .recipientCountry(order.getShippingCountry())
                 .recipientPhone(order.getShippingPhone())
-                .weightKg(totalWeight)
+                .weightKg(weightKg)
                 .notes(order.getNotes())
                 .build();
-        
-        ShipmentDTO shipment = shipmentGrpcClient.createShipment(request);
-        
-        // Update order status to SHIPPED
-        order.setStatus(OrderStatus.SHIPPED);
-        orderRepository.save(order);
-        
-        log.info("Shipment created with tracking number: {}", shipment.getTrackingNumber());
-        
-        return shipment;
     }
     
     /**
-     * Get shipment by ID.
+     * Fall back to the last known shipment record when the shipment service is unavailable.
      */
-    @Transactional(readOnly = true)
-    public ShipmentDTO getShipment(Long shipmentId) {
-        log.debug("Getting shipment: {}", shipmentId);
-        return shipmentGrpcClient.getShipment(shipmentId);
+    private static CompletableFuture<ShipmentDTO> lastKnown(Throwable error, Optional<ShipmentDTO> fallback) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ServiceUnavailableException && fallback.isPresent()) {
+            log.warn("Serving last known shipment {}: {}", fallback.get().getId(), cause.getMessage());
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+        return CompletableFuture.failedFuture(cause);
     }
     
     /**
-     * Get shipment by order ID.
+     * Claim a wave of ready orders and build their shipment requests, with weights summed in one query.
+     * Rows being claimed by a concurrent wave are skipped rather than waited on.
      */
-    @Transactional(readOnly = true)
-    public ShipmentDTO getShipmentByOrderId(Long orderId) {
-        log.debug("Getting shipment for order: {}", orderId);
-        return shipmentGrpcClient.getShipmentByOrderId(orderId);
+    private List<CreateShipmentRequest> claimWave(int limit, Map<Long, String> orderNumbers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> orderIds = orderRepository.findUnclaimedIdsByStatus(OrderStatus.READY_FOR_SHIPMENT,
+                now.minus(DISPATCH_CLAIM_TIMEOUT), PageRequest.of(0, limit));
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        orderRepository.claimForDispatch(orderIds, now);
+        List<Order> orders = orderRepository.findOldestByIdIn(orderIds);
+        
+        Map<Long, Double> weights = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumWeightByOrderIds(orders.stream().map(Order::getId).toList())) {
+            weights.put((Long) row[0], row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
+        }
+        
+        return orders.stream()
+                .map(order -> {
+                    orderNumbers.put(order.getId(), order.getOrderNumber());
+                    return toShipmentRequest(order, weights.getOrDefault(order.getId(), 0.0));
+                })
+                .toList();
     }
     
     /**
-     * Update shipment status.
+     * Record created shipments, mark their orders SHIPPED in one statement, release the claims
+     * of the failed ones and build the report.
      */
-    public ShipmentDTO updateShipmentStatus(Long shipmentId, String status, String location, String notes) {
-        log.info("Updating shipment {} status to: {}", shipmentId, status);
-        
-        ShipmentDTO updatedShipment = shipmentGrpcClient.updateShipmentStatus(shipmentId, status, location, notes);
+    private DispatchWaveResult completeWave(List<ShipmentGrpcClient.BatchResult> results, Map<Long, String> orderNumbers) {
+        List<Long> shippedOrderIds = results.stream()
+                .filter(ShipmentGrpcClient.BatchResult::isSuccess)
+                .map(ShipmentGrpcClient.BatchResult::orderId)
+                .toList();
+        List<Long> failedOrderIds = results.stream()
+                .filter(result -> !result.isSuccess())
+                .map(ShipmentGrpcClient.BatchResult::orderId)
+                .toList();
+        results.stream()
+                .filter(ShipmentGrpcClient.BatchResult::isSuccess)
+                .forEach(result -> shipmentProjection.record(result.shipment()));
         
-        // If shipment is delivered, update order status
-        if ("DELIVERED".equals(status)) {
-            Long orderId = updatedShipment.getOrderId();
-            if (orderId != null) {
-                Order order = orderRepository.findById(orderId).orElse(null);
-                if (order != null) {
-                    order.setStatus(OrderStatus.DELIVERED);
-                    orderRepository.save(order);
-                    log.info("Order {} marked as DELIVERED", orderId);
-                }
+        if (!shippedOrderIds.isEmpty()) {
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = orderRepository.markShipped(shippedOrderIds, LocalDateTime.now());
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                        OrderStatus.READY_FOR_SHIPMENT, OrderStatus.SHIPPED, count, BigDecimal.ZERO));
+                return count;
+            });
+            if (updated != null && updated != shippedOrderIds.size()) {
+                log.warn("Dispatch wave: {} shipments created but {} orders marked SHIPPED",
+                        shippedOrderIds.size(), updated);
             }
         }
+        releaseClaims(failedOrderIds);
         
-        return updatedShipment;
+        List<DispatchWaveResult.OrderResult> orderResults = results.stream()
+                .map(result -> DispatchWaveResult.OrderResult.builder()
+                        .orderId(result.orderId())
+                        .orderNumber(orderNumbers.get(result.orderId()))
+                        .success(result.isSuccess())
+                        .shipmentId(result.isSuccess() ? result.shipment().getId() : null)
+                        .trackingNumber(result.isSuccess() ? result.shipment().getTrackingNumber() : null)
+                        .error(result.error())
+                        .build())
+                .toList();
+        
+        log.info("Dispatch wave finished: {} of {} orders shipped", shippedOrderIds.size(), results.size());
+        return DispatchWaveResult.builder()
+                .total(results.size())
+                .succeeded(shippedOrderIds.size())
+                .failed(results.size() - shippedOrderIds.size())
+                .results(orderResults)
+                .build();
     }
     
     /**
-     * Get all shipments.
+     * Release dispatch claims so the next wave can pick the orders up without waiting for them to expire.
      */
-    @Transactional(readOnly = true)
-    public List<ShipmentDTO> getAllShipments(int page, int size, String statusFilter) {
-        log.debug("Getting all shipments");
-        return shipmentGrpcClient.getAllShipments(page, size, statusFilter);
+    private void releaseClaims(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderRepository.releaseDispatchClaims(orderIds));
+        } catch (RuntimeException e) {
+            log.warn("Could not release dispatch claims of {} orders; they expire in {}",
+                    orderIds.size(), DISPATCH_CLAIM_TIMEOUT, e);
+        }
     }
     
     /**
-     * Cancel a shipment.
+     * Move an order from one status to another if it is still in the expected status.
      */
-    public ShipmentDTO cancelShipment(Long shipmentId, String reason) {
-        log.info("Cancelling shipment: {}", shipmentId);
-        
-        ShipmentDTO cancelledShipment = shipmentGrpcClient.cancelShipment(shipmentId, reason);
-        
-        // Update order status back to READY_FOR_SHIPMENT if needed
-        Long orderId = cancelledShipment.getOrderId();
-        if (orderId != null) {
-            Order order = orderRepository.findById(orderId).orElse(null);
-            if (order != null && order.getStatus() == OrderStatus.SHIPPED) {
-                order.setStatus(OrderStatus.READY_FOR_SHIPMENT);
-                orderRepository.save(order);
-                log.info("Order {} status reverted to READY_FOR_SHIPMENT", orderId);
-            }
+    private void transitionOrder(Long orderId, OrderStatus from, OrderStatus to) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null || order.getStatus() != from) {
+            return;
         }
-        
-        return cancelledShipment;
+        order.setStatus(to);
+        switch (to) {
+            case SHIPPED -> order.setShippedAt(LocalDateTime.now());
+            case DELIVERED -> order.setDeliveredAt(LocalDateTime.now());
+            default -> { }
+        }
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.single(from, to, order.getTotalAmount()));
+        log.info("Order {} status changed from {} to {}", orderId, from, to);
     }
 }
@@ -1,5 +1,6 @@
 package com.sep3.warehouse.service;
 
+import com.sep3.warehouse.config.security.UserStatusCache;
 import com.sep3.warehouse.dto.user.CreateUserRequest;
 import com.sep3.warehouse.dto.user.UpdateUserRequest;
 import com.sep3.warehouse.dto.user.UserDTO;
@@ -31,6 +32,7 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final UserStatusCache userStatusCache;
     private final PasswordEncoder passwordEncoder;
     
     /**
@@ -178,6 +180,7 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        userStatusCache.evict(id);
         log.info("User updated successfully: {}", updatedUser.getUsername());
         
         return mapToDTO(updatedUser);
@@ -195,6 +198,7 @@ public class UserService {
         // Soft delete - deactivate instead of hard delete
         user.setIsActive(false);
         userRepository.save(user);
+        userStatusCache.evict(id);
         
         log.info("User deactivated successfully: {}", user.getUsername());
     }
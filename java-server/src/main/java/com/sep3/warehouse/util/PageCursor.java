@@ -0,0 +1,42 @@
+package com.sep3.warehouse.util;
+
+import com.sep3.warehouse.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by (created_at DESC, id DESC), used for keyset pagination.
+ * Serialized as an opaque URL-safe token.
+ */
+public record PageCursor(LocalDateTime createdAt, Long id) {
+    
+    /**
+     * Cursor positioned before the first row.
+     */
+    public static final PageCursor START = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+    
+    /**
+     * Decode a token, or return {@link #START} if none is given.
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new PageCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+    
+    public String encode() {
+        String value = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,122 @@
+package com.sep3.warehouse.config.security;
+
+import com.sep3.warehouse.entity.Role;
+import com.sep3.warehouse.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-request overhead of the JWT filter with the same token on every request:
+ * the original provider (key and parser rebuilt, token verified twice), the
+ * prebuilt key and parser with a single parse, and the same with the verified
+ * claims cache. The user status check is mocked so only token work is measured.
+ */
+@Slf4j
+class JwtAuthenticationFilterBenchmarkTest {
+    
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+    private static final int WARMUP = 20_000;
+    private static final int REQUESTS = 50_000;
+    
+    private final UserStatusCache userStatusCache = mock(UserStatusCache.class);
+    
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void filterOverheadPerRequest() throws Exception {
+        when(userStatusCache.isActiveWithRole(anyLong(), any())).thenReturn(true);
+        JwtTokenProvider cached = provider(1024);
+        String token = cached.generateAccessToken(User.builder()
+                .id(1L)
+                .username("operator")
+                .email("operator@example.com")
+                .role(Role.builder().name("OPERATOR").build())
+                .build());
+        
+        double rebuilt = nanosPerRequest(filter(new RebuildingTokenProvider()), token);
+        double singleParse = nanosPerRequest(filter(provider(0)), token);
+        double verifiedCache = nanosPerRequest(filter(cached), token);
+        log.info("JWT filter per request: {} us rebuilding key and parser, {} us single parse, {} us cached claims",
+                String.format("%.1f", rebuilt / 1000), String.format("%.1f", singleParse / 1000),
+                String.format("%.1f", verifiedCache / 1000));
+        
+        // One HMAC verification instead of two; the cache's gain is logged rather than asserted,
+        // as it is close to the noise of a shared build machine
+        assertThat(singleParse).isLessThan(rebuilt);
+    }
+    
+    private double nanosPerRequest(JwtAuthenticationFilter filter, String token) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            authenticate(filter, token);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            authenticate(filter, token);
+        }
+        return (System.nanoTime() - started) / (double) REQUESTS;
+    }
+    
+    private void authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        SecurityContextHolder.clearContext();
+    }
+    
+    private JwtAuthenticationFilter filter(JwtTokenProvider provider) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(provider, mock(UserDetailsService.class), userStatusCache);
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        return filter;
+    }
+    
+    private static JwtTokenProvider provider(int verifiedCacheSize) {
+        return new JwtTokenProvider(SECRET, 3_600_000, 86_400_000, verifiedCacheSize);
+    }
+    
+    /**
+     * The provider as it was: key and parser built per call, and the token parsed
+     * once to validate it and again to read its claims.
+     */
+    private static class RebuildingTokenProvider extends JwtTokenProvider {
+        
+        RebuildingTokenProvider() {
+            super(SECRET, 3_600_000, 86_400_000, 0);
+        }
+        
+        @Override
+        public Optional<Claims> parseValidatedClaims(String token) {
+            parse(token);
+            return Optional.of(parse(token));
+        }
+        
+        private static Claims parse(String token) {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.sep3.warehouse.export;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportRowWriterTest {
+    
+    @Test
+    void csvNeutralizesValuesSpreadsheetsWouldEvaluate() throws Exception {
+        String csv = writeCsvRow("=HYPERLINK(\"http://x\")", "+45 1234", "@SUM(A1)", "-2+3", -5, "plain");
+        
+        assertThat(csv).isEqualTo("a,b,c,d,e,f\r\n"
+                + "\"'=HYPERLINK(\"\"http://x\"\")\",'+45 1234,'@SUM(A1),'-2+3,-5,plain\r\n");
+    }
+    
+    @Test
+    void negativeNumbersStayNumeric() {
+        assertThat(ExportRowWriter.isFormula("-12.50")).isFalse();
+        assertThat(ExportRowWriter.isFormula("-cmd")).isTrue();
+        assertThat(ExportRowWriter.isFormula("")).isFalse();
+    }
+    
+    private static String writeCsvRow(Object... values) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(values.length);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        for (int i = 0; i < values.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(String.valueOf((char) ('a' + i)));
+            when(rs.getObject(i + 1)).thenReturn(values[i]);
+        }
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportRowWriter writer = new ExportRowWriter(ExportFormat.CSV, out)) {
+            writer.write(rs);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,262 @@
+package com.sep3.warehouse.grpc;
+
+import com.sep3.warehouse.dto.shipment.ShipmentDTO;
+import com.sep3.warehouse.exception.GlobalExceptionHandler;
+import com.sep3.warehouse.exception.ServiceUnavailableException;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link ShipmentGrpcClient} against an in-process stand-in for the shipment
+ * service: async calls, the deadline to 503 mapping, read retries, the circuit
+ * breaker, and a latency benchmark of the async path.
+ */
+@Slf4j
+class ShipmentGrpcClientTest {
+    
+    private static final long DEADLINE_MS = 200;
+    
+    private final StandInShipmentService service = new StandInShipmentService();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private MeterRegistry meterRegistry;
+    private Server server;
+    private ManagedChannel channel;
+    private ShipmentGrpcClient client;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(service).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        
+        meterRegistry = new SimpleMeterRegistry();
+        client = new ShipmentGrpcClient(meterRegistry);
+        ReflectionTestUtils.setField(client, "deadlineMs", DEADLINE_MS);
+        ReflectionTestUtils.setField(client, "batchDeadlineMs", DEADLINE_MS);
+        ReflectionTestUtils.setField(client, "maxConcurrentCalls", 64);
+        ReflectionTestUtils.setField(client, "readRetries", 2);
+        ReflectionTestUtils.setField(client, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(client, "breakerWindowSize", 10);
+        ReflectionTestUtils.setField(client, "breakerMinimumCalls", 4);
+        ReflectionTestUtils.setField(client, "breakerFailureRateThreshold", 50.0);
+        ReflectionTestUtils.setField(client, "breakerOpenDurationMs", 300L);
+        ReflectionTestUtils.setField(client, "breakerHalfOpenCalls", 1);
+        client.init(channel);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        scheduler.shutdownNow();
+    }
+    
+    @Test
+    void getShipmentCompletesAsynchronously() throws Exception {
+        ShipmentDTO shipment = client.getShipment(7L).get(5, TimeUnit.SECONDS);
+        
+        assertThat(shipment.getId()).isEqualTo(7L);
+        assertThat(shipment.getStatus()).isEqualTo(ShipmentStatus.IN_TRANSIT.name());
+        assertThat(service.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    void slowServiceFailsWithServiceUnavailableAtTheDeadline() {
+        ReflectionTestUtils.setField(client, "readRetries", 0);
+        service.delayMs = DEADLINE_MS * 5;
+        
+        long started = System.nanoTime();
+        Throwable error = failureOf(client.getShipment(1L));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        
+        assertThat(error).isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("DEADLINE_EXCEEDED");
+        assertThat(elapsedMs).isLessThan(DEADLINE_MS * 5);
+        assertThat(new GlobalExceptionHandler().handleServiceUnavailable((ServiceUnavailableException) error)
+                .getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+    @Test
+    void readsAreRetriedWhileTheServiceIsUnavailable() throws Exception {
+        service.failures.set(2);
+        
+        ShipmentDTO shipment = client.getShipmentByOrderId(3L).get(5, TimeUnit.SECONDS);
+        
+        assertThat(shipment.getOrderId()).isEqualTo(3L);
+        assertThat(service.calls.get()).isEqualTo(3);
+    }
+    
+    @Test
+    void readsGiveUpAfterTheConfiguredRetries() {
+        service.failures.set(10);
+        
+        assertThat(failureOf(client.getShipment(1L))).isInstanceOf(ServiceUnavailableException.class);
+        assertThat(service.calls.get()).isEqualTo(3);
+    }
+    
+    @Test
+    void writesAreNotRetried() {
+        service.failures.set(1);
+        
+        assertThat(failureOf(client.updateShipmentStatus(1L, "DELIVERED", null, null)))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(service.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    void breakerOpensOnFailuresAndFailsFastWithoutCalling() {
+        service.failures.set(100);
+        for (int i = 0; i < 4; i++) {
+            failureOf(client.cancelShipment(1L, "test"));
+        }
+        assertThat(breakerState("open")).isEqualTo(1.0);
+        int callsWhenOpened = service.calls.get();
+        
+        Throwable rejected = failureOf(client.cancelShipment(1L, "test"));
+        
+        assertThat(rejected).isInstanceOf(ServiceUnavailableException.class).hasNoCause();
+        assertThat(service.calls.get()).isEqualTo(callsWhenOpened);
+    }
+    
+    @Test
+    void breakerClosesAfterASuccessfulTrialCall() throws Exception {
+        service.failures.set(4);
+        for (int i = 0; i < 4; i++) {
+            failureOf(client.cancelShipment(1L, "test"));
+        }
+        assertThat(breakerState("open")).isEqualTo(1.0);
+        
+        Thread.sleep(400);
+        client.cancelShipment(1L, "test").get(5, TimeUnit.SECONDS);
+        
+        assertThat(breakerState("closed")).isEqualTo(1.0);
+    }
+    
+    @Test
+    void latencyBenchmark() throws Exception {
+        int calls = 5_000;
+        int inFlight = 32;
+        service.delayMs = 1;
+        Semaphore slots = new Semaphore(inFlight);
+        long[] latencies = new long[calls];
+        List<CompletableFuture<ShipmentDTO>> futures = new ArrayList<>(calls);
+        
+        long started = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            slots.acquire();
+            int index = i;
+            long callStarted = System.nanoTime();
+            futures.add(client.getShipment((long) i + 1).whenComplete((shipment, error) -> {
+                latencies[index] = System.nanoTime() - callStarted;
+                slots.release();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        
+        Arrays.sort(latencies);
+        log.info("{} async getShipment calls, {} in flight, in {} ms ({} calls/s); latency p50 {} us, p99 {} us, max {} us",
+                calls, inFlight, elapsedMs, calls * 1000L / elapsedMs, micros(latencies, 0.50),
+                micros(latencies, 0.99), latencies[calls - 1] / 1000);
+        assertThat(service.calls.get()).isEqualTo(calls);
+    }
+    
+    private double breakerState(String state) {
+        return meterRegistry.get("circuitbreaker.state").tag("state", state).gauge().value();
+    }
+    
+    private static long micros(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1000;
+    }
+    
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        throw new AssertionError("Expected the call to fail");
+    }
+    
+    /**
+     * Answers every unary call with a shipment, after delayMs, unless told to fail
+     * the next calls with UNAVAILABLE.
+     */
+    private final class StandInShipmentService extends ShipmentServiceGrpc.ShipmentServiceImplBase {
+        
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long delayMs;
+        
+        @Override
+        public void getShipment(GetShipmentRequest request, StreamObserver<ShipmentResponse> observer) {
+            respond(request.getShipmentId(), 1L, observer);
+        }
+        
+        @Override
+        public void getShipmentByOrderId(GetShipmentByOrderIdRequest request, StreamObserver<ShipmentResponse> observer) {
+            respond(1L, request.getOrderId(), observer);
+        }
+        
+        @Override
+        public void updateShipmentStatus(UpdateShipmentStatusRequest request, StreamObserver<ShipmentResponse> observer) {
+            respond(request.getShipmentId(), 1L, observer);
+        }
+        
+        @Override
+        public void cancelShipment(CancelShipmentRequest request, StreamObserver<ShipmentResponse> observer) {
+            respond(request.getShipmentId(), 1L, observer);
+        }
+        
+        private void respond(long shipmentId, long orderId, StreamObserver<ShipmentResponse> observer) {
+            calls.incrementAndGet();
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                observer.onError(Status.UNAVAILABLE.withDescription("stand-in is down").asRuntimeException());
+                return;
+            }
+            ShipmentResponse response = ShipmentResponse.newBuilder()
+                    .setSuccess(true)
+                    .setShipment(Shipment.newBuilder()
+                            .setId(shipmentId)
+                            .setOrderId(orderId)
+                            .setStatus(ShipmentStatus.IN_TRANSIT))
+                    .build();
+            Runnable reply = () -> {
+                observer.onNext(response);
+                observer.onCompleted();
+            };
+            if (delayMs > 0) {
+                scheduler.schedule(reply, delayMs, TimeUnit.MILLISECONDS);
+            } else {
+                reply.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.sep3.warehouse.grpc;
+
+import com.sep3.warehouse.repository.StreamPositionRepository;
+import com.sep3.warehouse.service.ShipmentService;
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShipmentUpdateSubscriberTest {
+    
+    private static final String SAVED = "2024-01-01T00:00:00";
+    
+    private final ShipmentGrpcClient client = mock(ShipmentGrpcClient.class);
+    private final ShipmentService shipmentService = mock(ShipmentService.class);
+    private final StreamPositionRepository positionRepository = mock(StreamPositionRepository.class);
+    private final List<StreamObserver<ShipmentUpdate>> streams = new CopyOnWriteArrayList<>();
+    private ShipmentUpdateSubscriber subscriber;
+    
+    @BeforeEach
+    void setUp() {
+        when(positionRepository.find("shipment_updates")).thenReturn(Optional.of(SAVED));
+        when(client.streamAllShipmentUpdates(any(), any())).thenAnswer(invocation -> {
+            streams.add(invocation.getArgument(1));
+            return Context.current().withCancellation();
+        });
+        when(shipmentService.onShipmentStatusChanged(anyLong(), anyLong(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        
+        subscriber = new ShipmentUpdateSubscriber(client, new ShipmentStatusProjection(), shipmentService,
+                positionRepository, true, 10, 10);
+        subscriber.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        subscriber.stop();
+    }
+    
+    @Test
+    void positionFollowsAppliedUpdates() {
+        streams.get(0).onNext(update(11, 1, "2024-01-02T10:00:00"));
+        streams.get(0).onNext(update(12, 2, "2024-01-02T10:00:01"));
+        
+        subscriber.savePosition();
+        
+        verify(positionRepository).save("shipment_updates", "2024-01-02T10:00:01");
+    }
+    
+    @Test
+    void failedTransitionKeepsPositionAndResumesFromIt() {
+        when(shipmentService.onShipmentStatusChanged(2L, 12L, "DELIVERED"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("database down")));
+        
+        streams.get(0).onNext(update(11, 1, "2024-01-02T10:00:00"));
+        streams.get(0).onNext(update(12, 2, "2024-01-02T10:00:01"));
+        streams.get(0).onNext(update(13, 3, "2024-01-02T10:00:02"));
+        subscriber.savePosition();
+        
+        verify(positionRepository).save("shipment_updates", "2024-01-02T10:00:00");
+        verify(shipmentService, never()).onShipmentStatusChanged(3L, 13L, "DELIVERED");
+        verify(client, timeout(5_000)).streamAllShipmentUpdates(eq("2024-01-02T10:00:00"), any());
+        
+        // The replayed update is applied this time; the dropped stream's callbacks are ignored
+        when(shipmentService.onShipmentStatusChanged(2L, 12L, "DELIVERED"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        streams.get(0).onNext(update(14, 4, "2024-01-02T10:00:03"));
+        streams.get(1).onNext(update(12, 2, "2024-01-02T10:00:01"));
+        subscriber.savePosition();
+        
+        verify(positionRepository).save("shipment_updates", "2024-01-02T10:00:01");
+        verify(shipmentService, never()).onShipmentStatusChanged(4L, 14L, "DELIVERED");
+        assertThat(streams).hasSize(2);
+    }
+    
+    private static ShipmentUpdate update(long shipmentId, long orderId, String timestamp) {
+        return ShipmentUpdate.newBuilder()
+                .setShipmentId(shipmentId)
+                .setOrderId(orderId)
+                .setStatus(ShipmentStatus.DELIVERED)
+                .setTimestamp(timestamp)
+                .build();
+    }
+}
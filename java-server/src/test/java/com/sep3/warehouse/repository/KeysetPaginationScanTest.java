@@ -0,0 +1,175 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.entity.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset finders must turn the cursor into an index range: a page deep in the
+ * list must not read the rows before the cursor again. Each finder's SQL is
+ * captured, run again under H2's EXPLAIN ANALYZE with the same values, and the
+ * scan count of the paged table is checked against the rows past the cursor.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.import_files=h2-keyset-indexes.sql",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.sep3.warehouse.repository.KeysetPaginationScanTest$LastStatement",
+        "spring.sql.init.schema-locations=classpath:h2-types.sql"
+})
+class KeysetPaginationScanTest {
+    
+    private static final int ROWS = 2000;
+    private static final int DEPTH = 1800;
+    private static final int PAGE = 20;
+    private static final Pattern BOUND_PARAMETER = Pattern.compile("\\.(\\w+)(<=|<|=)\\?");
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private InventoryTransactionRepository transactionRepository;
+    
+    private Long productId;
+    
+    @BeforeEach
+    void setUp() {
+        // Two rows per second, so the id tie-break is exercised as well
+        jdbcTemplate.update("INSERT INTO orders (order_number, status, created_at) " +
+                "SELECT 'ORD-' || X, CASE WHEN MOD(X, 2) = 0 THEN 'PENDING' ELSE 'SHIPPED' END, " +
+                "DATEADD(SECOND, X / 2, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO products (sku, name, price, quantity_in_stock, is_active, created_at) " +
+                "SELECT 'SKU-' || X, 'Product ' || X, 10, 100, TRUE, " +
+                "DATEADD(SECOND, X / 2, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, ?)", ROWS);
+        productId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM products", Long.class);
+        jdbcTemplate.update("INSERT INTO inventory_transactions (product_id, transaction_type, quantity, created_at) " +
+                "SELECT ? + MOD(X, 2), 'SALE', -1, " +
+                "DATEADD(SECOND, X / 2, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, ?)", productId, ROWS);
+    }
+    
+    @Test
+    void orderPagesReadOnePage() {
+        assertDeepPageReadsOnePage("orders", null, Map.of(),
+                (createdAt, id) -> orderRepository.findAfter(createdAt, id, page()));
+        assertDeepPageReadsOnePage("orders", null, Map.of(),
+                (createdAt, id) -> orderRepository.findSummariesAfter(createdAt, id, page()));
+    }
+    
+    @Test
+    void orderPagesByStatusReadOnePage() {
+        Map<String, String> status = Map.of("status", "'PENDING'");
+        assertDeepPageReadsOnePage("orders", "status = 'PENDING'", status,
+                (createdAt, id) -> orderRepository.findByStatusAfter(OrderStatus.PENDING, createdAt, id, page()));
+        assertDeepPageReadsOnePage("orders", "status = 'PENDING'", status,
+                (createdAt, id) -> orderRepository.findSummariesByStatusAfter(OrderStatus.PENDING, createdAt, id, page()));
+    }
+    
+    @Test
+    void productPagesReadOnePage() {
+        assertDeepPageReadsOnePage("products", null, Map.of(),
+                (createdAt, id) -> productRepository.findActiveAfter(createdAt, id, page()));
+    }
+    
+    @Test
+    void transactionPagesReadOnePage() {
+        assertDeepPageReadsOnePage("inventory_transactions", null, Map.of(),
+                (createdAt, id) -> transactionRepository.findAfter(createdAt, id, page()));
+        assertDeepPageReadsOnePage("inventory_transactions", "product_id = " + productId,
+                Map.of("product_id", String.valueOf(productId)),
+                (createdAt, id) -> transactionRepository.findByProductIdAfter(productId, createdAt, id, page()));
+    }
+    
+    /**
+     * Fetch the page after a cursor {@link #DEPTH} rows deep (half as deep when
+     * filtered to half the rows) and check how many rows of the table the same query scans.
+     */
+    private void assertDeepPageReadsOnePage(String table, String filter, Map<String, String> values,
+                                            BiFunction<LocalDateTime, Long, Collection<?>> finder) {
+        Map<String, Object> cursor = jdbcTemplate.queryForMap("SELECT created_at, id FROM " + table +
+                (filter != null ? " WHERE " + filter : "") +
+                " ORDER BY created_at DESC, id DESC OFFSET ? ROWS FETCH FIRST 1 ROW ONLY",
+                filter != null ? DEPTH / 2 : DEPTH);
+        LocalDateTime createdAt = ((Timestamp) cursor.get("CREATED_AT")).toLocalDateTime();
+        Long id = ((Number) cursor.get("ID")).longValue();
+        
+        assertThat(finder.apply(createdAt, id)).hasSize(PAGE);
+        String sql = LastStatement.sql;
+        
+        Long remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " +
+                (filter != null ? filter + " AND " : "") + "(created_at < ? OR (created_at = ? AND id < ?))",
+                Long.class, createdAt, createdAt, id);
+        Map<String, String> literals = new HashMap<>(values);
+        literals.put("created_at", "TIMESTAMP '" + Timestamp.valueOf(createdAt) + "'");
+        literals.put("id", String.valueOf(id));
+        long scanned = scanCount(table, sql, literals);
+        log.info("{} rows of {} scanned for a page of {} with {} rows past the cursor", scanned, table, PAGE, remaining);
+        
+        // H2 stops after one page when the index order matches the ORDER BY, but reads the
+        // whole range behind an equality prefix; either way, plus the cursor's timestamp
+        assertThat(scanned).as("rows of %s scanned: %s", table, LastStatement.plan)
+                .isLessThanOrEqualTo(remaining + 2);
+    }
+    
+    /**
+     * Run the statement under EXPLAIN ANALYZE with its parameters inlined and
+     * return the scan count of the given table.
+     */
+    private long scanCount(String table, String sql, Map<String, String> literals) {
+        Matcher bound = BOUND_PARAMETER.matcher(sql);
+        String inlined = bound.replaceAll(match -> {
+            String literal = literals.get(match.group(1));
+            assertThat(literal).as("value for %s", match.group(1)).isNotNull();
+            return Matcher.quoteReplacement("." + match.group(1) + match.group(2) + literal);
+        }).replace("offset ? rows", "offset 0 rows").replace("?", String.valueOf(PAGE));
+        
+        String plan = LastStatement.plan = jdbcTemplate.queryForObject("EXPLAIN ANALYZE " + inlined, String.class);
+        Matcher scan = Pattern.compile("FROM \"PUBLIC\".\"" + table.toUpperCase() + "\".*?scanCount: (\\d+)",
+                Pattern.DOTALL).matcher(plan);
+        assertThat(scan.find()).as("scan count of %s in %s", table, plan).isTrue();
+        return Long.parseLong(scan.group(1));
+    }
+    
+    private static Pageable page() {
+        return PageRequest.of(0, PAGE);
+    }
+    
+    /**
+     * Keeps the SQL of the last statement Hibernate prepared.
+     */
+    public static class LastStatement implements StatementInspector {
+    
+        static volatile String sql;
+        static volatile String plan;
+        
+        @Override
+        public String inspect(String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+}
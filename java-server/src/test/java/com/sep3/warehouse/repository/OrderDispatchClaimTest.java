@@ -0,0 +1,81 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dispatch waves claim their orders in the database, so a second wave, on this
+ * instance or another, picks the next ready orders instead of the same ones.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.schema-locations=classpath:h2-types.sql"
+})
+class OrderDispatchClaimTest {
+    
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final LocalDateTime EXPIRED_BEFORE = NOW.minusMinutes(5);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO orders (order_number, status, created_at) " +
+                "SELECT 'ORD-' || X, CASE WHEN X <= 6 THEN 'READY_FOR_SHIPMENT' ELSE 'PENDING' END, " +
+                "DATEADD(MINUTE, X, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, 8)");
+    }
+    
+    @Test
+    void concurrentWavesTakeDisjointOrders() {
+        List<Long> first = claim(4);
+        List<Long> second = claim(4);
+        
+        assertThat(first).hasSize(4);
+        assertThat(second).hasSize(2).doesNotContainAnyElementsOf(first);
+        assertThat(claim(4)).isEmpty();
+    }
+    
+    @Test
+    void releasedAndExpiredClaimsAreDispatchedAgain() {
+        List<Long> released = claim(2);
+        orderRepository.releaseDispatchClaims(released);
+        assertThat(claim(2)).containsExactlyElementsOf(released);
+        
+        // A wave whose server died leaves claims that the next wave takes over once they expire
+        List<Long> stale = claim(2);
+        orderRepository.claimForDispatch(stale, EXPIRED_BEFORE.minusSeconds(1));
+        assertThat(claim(2)).containsExactlyElementsOf(stale);
+    }
+    
+    @Test
+    void shippedOrdersDropTheirClaim() {
+        List<Long> claimed = claim(6);
+        
+        assertThat(orderRepository.markShipped(claimed, NOW)).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE dispatch_claimed_at IS NOT NULL", Long.class)).isZero();
+    }
+    
+    private List<Long> claim(int limit) {
+        List<Long> ids = orderRepository.findUnclaimedIdsByStatus(OrderStatus.READY_FOR_SHIPMENT,
+                EXPIRED_BEFORE, PageRequest.of(0, limit));
+        if (!ids.isEmpty()) {
+            orderRepository.claimForDispatch(ids, NOW);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,179 @@
+package com.sep3.warehouse.repository;
+
+import com.sep3.warehouse.entity.Order;
+import com.sep3.warehouse.entity.OrderItem;
+import com.sep3.warehouse.entity.OrderStatus;
+import com.sep3.warehouse.entity.Product;
+import com.sep3.warehouse.entity.Role;
+import com.sep3.warehouse.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Paged order queries must cost the same number of statements whatever the page
+ * size: users come in through the "Order.withUsers" graph and items (with their
+ * products) are batch-fetched, so touching every row never adds a query per order.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.schema-locations=classpath:h2-types.sql"
+})
+class OrderRepositoryQueryCountTest {
+    
+    private static final int ORDERS = 60;
+    private static final int SMALL_PAGE = 5;
+    private static final int LARGE_PAGE = 25;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private Statistics statistics;
+    private Long customerId;
+    
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        
+        Role customerRole = entityManager.persist(Role.builder().name("CUSTOMER").build());
+        Role operatorRole = entityManager.persist(Role.builder().name("OPERATOR").build());
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            customers.add(entityManager.persist(user("customer" + i, customerRole)));
+        }
+        List<User> operators = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            operators.add(entityManager.persist(user("operator" + i, operatorRole)));
+        }
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            products.add(entityManager.persist(Product.builder()
+                    .sku("SKU-" + i).name("Product " + i)
+                    .price(BigDecimal.TEN).quantityInStock(100)
+                    .build()));
+        }
+        
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ORD-TEST-" + i);
+            order.setStatus(OrderStatus.PENDING);
+            // One customer owns every other order, so findByCustomerId pages fill up as well
+            order.setCustomer(customers.get(i % 2 == 0 ? 0 : 1 + i % (customers.size() - 1)));
+            order.setProcessedBy(operators.get(i % operators.size()));
+            order.setApprovedBy(operators.get((i + 1) % operators.size()));
+            for (int line = 0; line < 3; line++) {
+                order.addOrderItem(OrderItem.builder()
+                        .product(products.get((i + line) % products.size()))
+                        .quantity(1 + line)
+                        .unitPrice(BigDecimal.TEN)
+                        .build());
+            }
+            entityManager.persist(order);
+        }
+        customerId = customers.get(0).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    void findAllCostsConstantStatementsPerPage() {
+        assertConstantStatements("findAll", orderRepository::findAll);
+    }
+    
+    @Test
+    void findByStatusCostsConstantStatementsPerPage() {
+        assertConstantStatements("findByStatus", page -> orderRepository.findByStatus(OrderStatus.PENDING, page));
+    }
+    
+    @Test
+    void findByCustomerIdCostsConstantStatementsPerPage() {
+        assertConstantStatements("findByCustomerId", page -> orderRepository.findByCustomerId(customerId, page));
+    }
+    
+    @Test
+    void findByDateRangeCostsConstantStatementsPerPage() {
+        LocalDateTime now = LocalDateTime.now();
+        assertConstantStatements("findByDateRange",
+                page -> orderRepository.findByDateRange(now.minusDays(1), now.plusDays(1), page));
+    }
+    
+    @Test
+    void keysetFindersCostConstantStatementsPerPage() {
+        // A cursor past every order returns the first page; keyset pages have no count query
+        LocalDateTime createdAt = LocalDateTime.now().plusDays(1);
+        assertConstantStatements("findAfter", 3,
+                page -> orderRepository.findAfter(createdAt, Long.MAX_VALUE, page));
+        assertConstantStatements("findByStatusAfter", 3,
+                page -> orderRepository.findByStatusAfter(OrderStatus.PENDING, createdAt, Long.MAX_VALUE, page));
+        // Summaries are a single projection query with nothing lazy behind them
+        assertConstantStatements("findSummariesAfter", 1,
+                page -> orderRepository.findSummariesAfter(createdAt, Long.MAX_VALUE, page));
+        assertConstantStatements("findSummariesByStatusAfter", 1,
+                page -> orderRepository.findSummariesByStatusAfter(OrderStatus.PENDING, createdAt, Long.MAX_VALUE, page));
+    }
+    
+    private void assertConstantStatements(String query, Function<Pageable, Page<Order>> finder) {
+        // Page query, count query, items batch and products batch
+        assertConstantStatements(query, 4, page -> finder.apply(page).getContent());
+    }
+    
+    private void assertConstantStatements(String query, int maxStatements, Function<Pageable, List<?>> finder) {
+        long small = statementsFor(finder, SMALL_PAGE);
+        long large = statementsFor(finder, LARGE_PAGE);
+        log.info("{}: {} statements for a page of {}, {} for a page of {}", query, small, SMALL_PAGE, large, LARGE_PAGE);
+        
+        assertThat(large).as("%s statements for a page of %d", query, LARGE_PAGE).isEqualTo(small);
+        assertThat(small).as("%s statements per page", query).isLessThanOrEqualTo(maxStatements);
+    }
+    
+    /**
+     * Load one page and touch everything an order listing renders, counting prepared statements.
+     */
+    private long statementsFor(Function<Pageable, List<?>> finder, int pageSize) {
+        entityManager.clear();
+        statistics.clear();
+        List<?> page = finder.apply(PageRequest.of(0, pageSize));
+        assertThat(page).hasSize(pageSize);
+        for (Order order : page.stream().filter(Order.class::isInstance).map(Order.class::cast).toList()) {
+            order.getCustomer().getRole().getName();
+            order.getProcessedBy().getUsername();
+            order.getApprovedBy().getUsername();
+            order.getOrderItems().forEach(item -> item.getProduct().getName());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+    
+    private static User user(String username, Role role) {
+        return User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .passwordHash("hash")
+                .role(role)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.sep3.warehouse.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency harness for the guarded stock UPDATE behind order placement:
+ * thousands of parallel orders against a few hot SKUs, with demand well above
+ * the stock, must never sell a unit that does not exist.
+ */
+@Slf4j
+class ProductStockConcurrencyTest {
+    
+    private static final int ORDERS = 5_000;
+    private static final int THREADS = 32;
+    private static final int HOT_PRODUCTS = 3;
+    private static final int STOCK_PER_PRODUCT = 2_000;
+    
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ProductStockRepositoryImpl stockRepository;
+    private TransactionTemplate transaction;
+    
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:stock-" + UUID.randomUUID()
+                + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000");
+        dataSource.setMaximumPoolSize(THREADS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, sku VARCHAR(50) NOT NULL, " +
+                "quantity_in_stock INTEGER NOT NULL)");
+        for (long id = 1; id <= HOT_PRODUCTS; id++) {
+            jdbcTemplate.update("INSERT INTO products (id, sku, quantity_in_stock) VALUES (?, ?, ?)",
+                    id, "HOT-" + id, STOCK_PER_PRODUCT);
+        }
+        stockRepository = new ProductStockRepositoryImpl(jdbcTemplate);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+    
+    @Test
+    void parallelOrdersNeverOversellHotProducts() throws Exception {
+        AtomicLongArray sold = new AtomicLongArray(HOT_PRODUCTS + 1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(executor.submit(() -> {
+                start.await();
+                Map<Long, Integer> quantities = randomOrder();
+                if (placeOrder(quantities)) {
+                    quantities.forEach((productId, quantity) -> sold.addAndGet(productId.intValue(), quantity));
+                    accepted.incrementAndGet();
+                } else {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> order : orders) {
+            order.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        executor.shutdown();
+        log.info("{} orders on {} threads in {} ms ({} orders/s): {} accepted, {} rejected",
+                ORDERS, THREADS, elapsedMillis, ORDERS * 1000L / elapsedMillis, accepted.get(), rejected.get());
+        
+        assertThat(accepted.get() + rejected.get()).isEqualTo(ORDERS);
+        assertThat(rejected.get()).as("demand exceeds stock").isPositive();
+        for (long id = 1; id <= HOT_PRODUCTS; id++) {
+            int stock = jdbcTemplate.queryForObject(
+                    "SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, id);
+            assertThat(stock).as("stock of product %d", id).isNotNegative();
+            assertThat(sold.get((int) id)).as("units sold of product %d", id)
+                    .isEqualTo(STOCK_PER_PRODUCT - stock);
+        }
+    }
+    
+    /**
+     * Reserve all quantities in one transaction, like order placement; all or nothing.
+     */
+    private boolean placeOrder(Map<Long, Integer> quantities) {
+        return Boolean.TRUE.equals(transaction.execute(status -> {
+            if (!stockRepository.reserveStock(quantities).isEmpty()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+    }
+    
+    /**
+     * One to three units of one or two hot products.
+     */
+    private static Map<Long, Integer> randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Long, Integer> quantities = new HashMap<>();
+        int lines = random.nextInt(1, 3);
+        for (int i = 0; i < lines; i++) {
+            quantities.put(random.nextLong(1, HOT_PRODUCTS + 1), random.nextInt(1, 4));
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,163 @@
+package com.sep3.warehouse.reservation;
+
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.entity.Product;
+import com.sep3.warehouse.repository.ProductRepository;
+import com.sep3.warehouse.repository.StockLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotStockReservationsTest {
+    
+    private static final Long PRODUCT_ID = 1L;
+    private static final int BLOCK_SIZE = 10;
+    
+    private final StockLeaseRepository leaseRepository = mock(StockLeaseRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final AtomicReference<String> leaseThread = new AtomicReference<>();
+    private HotStockReservations reservations;
+    
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(leaseRepository.findHotProducts()).thenReturn(Map.of(PRODUCT_ID, BLOCK_SIZE));
+        when(leaseRepository.takeStock(eq(PRODUCT_ID), anyInt())).thenAnswer(invocation -> {
+            leaseThread.set(Thread.currentThread().getName());
+            return invocation.getArgument(1);
+        });
+        
+        reservations = new HotStockReservations(leaseRepository, productRepository,
+                mock(ProductLookupCache.class), mock(ApplicationEventPublisher.class),
+                transactionManager, new SimpleMeterRegistry(), 4, 60_000, 300, 300);
+        reservations.reconcile();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        reservations.shutdown();
+    }
+    
+    @Test
+    void orderOnEmptyPoolReservesOnTheRowAndLeasesOnTheLeaseThread() {
+        reserveInTransaction(Map.of(PRODUCT_ID, 3));
+        
+        verify(productRepository).reserveStock(Map.of(PRODUCT_ID, 3));
+        awaitLeasedBlock();
+        assertThat(leaseThread.get()).isEqualTo("hot-stock-lease");
+        
+        reserveInTransaction(Map.of(PRODUCT_ID, 4));
+        
+        verify(productRepository).reserveStock(Map.of());
+    }
+    
+    @Test
+    void ordersDoNotWaitForLeaseIo() throws Exception {
+        CountDownLatch leaseStarted = new CountDownLatch(1);
+        CountDownLatch releaseLease = new CountDownLatch(1);
+        when(leaseRepository.takeStock(eq(PRODUCT_ID), anyInt())).thenAnswer(invocation -> {
+            leaseStarted.countDown();
+            releaseLease.await();
+            return invocation.getArgument(1);
+        });
+        
+        reserveInTransaction(Map.of(PRODUCT_ID, 3));
+        assertThat(leaseStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        // The lease thread is stuck in the database; orders keep going on the row
+        long started = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            reserveInTransaction(Map.of(PRODUCT_ID, 1));
+        }
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(1));
+        releaseLease.countDown();
+    }
+    
+    @Test
+    void rolledBackOrderReturnsUnitsToThePool() {
+        leaseOneBlock();
+        
+        TransactionSynchronizationManager.initSynchronization();
+        reservations.reserve(Map.of(PRODUCT_ID, BLOCK_SIZE));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        
+        reserveInTransaction(Map.of(PRODUCT_ID, BLOCK_SIZE));
+        
+        verify(productRepository, never()).reserveStock(Map.of(PRODUCT_ID, BLOCK_SIZE));
+    }
+    
+    @Test
+    void removalTakesHeldUnitsBeforeTheRow() {
+        leaseOneBlock();
+        when(productRepository.applyStockChange(PRODUCT_ID, -2)).thenReturn(1);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        
+        assertThat(reservations.applyStockChange(PRODUCT_ID, -(BLOCK_SIZE + 2))).isTrue();
+        verify(productRepository).applyStockChange(PRODUCT_ID, -2);
+    }
+    
+    @Test
+    void rejectedRemovalKeepsHeldUnits() {
+        leaseOneBlock();
+        
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(reservations.applyStockChange(PRODUCT_ID, -(BLOCK_SIZE + 2))).isFalse();
+        TransactionSynchronizationManager.clearSynchronization();
+        
+        reserveInTransaction(Map.of(PRODUCT_ID, BLOCK_SIZE));
+        
+        verify(productRepository, never()).reserveStock(Map.of(PRODUCT_ID, BLOCK_SIZE));
+    }
+    
+    /**
+     * Miss the empty pool once, so the lease thread fills it with one block.
+     */
+    private void leaseOneBlock() {
+        reserveInTransaction(Map.of(PRODUCT_ID, 1));
+        awaitLeasedBlock();
+    }
+    
+    private void awaitLeasedBlock() {
+        Product product = Product.builder().id(PRODUCT_ID).quantityInStock(0).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reservations.availableStock(product) < BLOCK_SIZE) {
+            assertThat(System.nanoTime()).as("block leased").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+    
+    private void reserveInTransaction(Map<Long, Integer> quantities) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservations.reserve(quantities);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.sep3.warehouse.service;
+
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.dto.order.CreateOrderItemRequest;
+import com.sep3.warehouse.dto.order.CreateOrderRequest;
+import com.sep3.warehouse.ledger.InventoryLedger;
+import com.sep3.warehouse.repository.InventoryLedgerRepository;
+import com.sep3.warehouse.repository.StockLeaseRepository;
+import com.sep3.warehouse.reservation.HotStockReservations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creating an order must cost a handful of statements however many lines it
+ * has: products are loaded in one query, stock is reserved with one batch of
+ * guarded UPDATEs, the ledger rows go in one batch, and items are inserted in
+ * JDBC batches with their ids allocated in blocks. Statements are counted at
+ * the JDBC level (a batch counts once), so the JdbcTemplate writes are included.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-creation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.import_files=h2-order-numbers.sql",
+        "spring.sql.init.schema-locations=classpath:h2-types.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderNumberAllocator.class, InventoryLedger.class, InventoryLedgerRepository.class,
+        HotStockReservations.class, OrderCreationStatementCountTest.Config.class})
+// Orders commit, so the ledger is written as it is in production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderCreationStatementCountTest {
+    
+    private static final int[] LINE_COUNTS = {10, 100, 1000};
+    private static final int ORDERS_PER_SIZE = 30;
+    private static final int WARMUP_ORDERS = 5;
+    private static final int ITEM_BATCH = 50;
+    
+    @MockBean
+    private ProductLookupCache productLookupCache;
+    
+    @MockBean
+    private StockLeaseRepository stockLeaseRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Test
+    void statementsPerOrderStayBatchedAsLinesGrow() {
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('CUSTOMER')");
+        jdbcTemplate.update("INSERT INTO users (username, email, password_hash, role_id, is_active) " +
+                "SELECT 'customer', 'customer@example.com', 'hash', id, TRUE FROM roles");
+        Long customerId = jdbcTemplate.queryForObject("SELECT id FROM users", Long.class);
+        int products = Arrays.stream(LINE_COUNTS).max().orElseThrow();
+        jdbcTemplate.update("INSERT INTO products (sku, name, price, quantity_in_stock, is_active, created_at) " +
+                "SELECT 'SKU-' || X, 'Product ' || X, 10, 1000000, TRUE, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, ?)", products);
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class);
+        AtomicLong statements = ((CountingDataSource) dataSource).statements;
+        
+        for (int lines : LINE_COUNTS) {
+            CreateOrderRequest request = new CreateOrderRequest();
+            request.setCustomerId(customerId);
+            request.setItems(IntStream.range(0, lines)
+                    .mapToObj(i -> new CreateOrderItemRequest(productIds.get(i), 1))
+                    .toList());
+            
+            // Warm up so the latency reflects the steady state rather than class loading and JIT
+            for (int i = 0; i < WARMUP_ORDERS; i++) {
+                orderService.createOrder(request);
+            }
+            List<Long> nanos = new ArrayList<>();
+            long statementsPerOrder = -1;
+            for (int i = 0; i < ORDERS_PER_SIZE; i++) {
+                long before = statements.get();
+                long started = System.nanoTime();
+                orderService.createOrder(request);
+                nanos.add(System.nanoTime() - started);
+                statementsPerOrder = statements.get() - before;
+            }
+            nanos.sort(null);
+            long p99 = nanos.get((int) Math.ceil(nanos.size() * 0.99) - 1);
+            log.info("{} statements for an order of {} lines, p99 {} ms over {} orders",
+                    statementsPerOrder, lines, String.format("%.2f", p99 / 1e6), ORDERS_PER_SIZE);
+            
+            // Customer, order number, products, stock batch, order insert, ledger batch and the commit;
+            // per block of items one id allocation and one insert batch
+            int itemBlocks = (lines + ITEM_BATCH - 1) / ITEM_BATCH;
+            assertThat(statementsPerOrder).as("statements for an order of %d lines", lines)
+                    .isLessThanOrEqualTo(7 + 2L * itemBlocks);
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class))
+                .isEqualTo((long) (WARMUP_ORDERS + ORDERS_PER_SIZE) * Arrays.stream(LINE_COUNTS).sum());
+    }
+    
+    @TestConfiguration
+    static class Config {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+        
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                            ? new CountingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+    
+    /**
+     * Counts statements sent to the database: every execute call, a whole batch counting once.
+     */
+    static class CountingDataSource extends DelegatingDataSource {
+        
+        private final AtomicLong statements = new AtomicLong();
+        
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+        
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(Connection.class, super.getConnection());
+        }
+        
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(Connection.class, super.getConnection(username, password));
+        }
+        
+        private <T> T counting(Class<T> type, T target) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    statements.incrementAndGet();
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (method.getName().equals("prepareStatement")) {
+                    return counting(PreparedStatement.class, (PreparedStatement) result);
+                }
+                if (method.getName().equals("createStatement")) {
+                    return counting(Statement.class, (Statement) result);
+                }
+                return result;
+            }));
+        }
+    }
+}
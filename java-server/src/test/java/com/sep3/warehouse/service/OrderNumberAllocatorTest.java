@@ -0,0 +1,84 @@
+package com.sep3.warehouse.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation throughput of {@link OrderNumberAllocator} under 64 concurrent threads
+ * sharing a pool of 10 connections, as in application.yml; every number must be unique.
+ */
+@Slf4j
+class OrderNumberAllocatorTest {
+    
+    private static final int THREADS = 64;
+    private static final int PER_THREAD = 1_000;
+    
+    private HikariDataSource dataSource;
+    private OrderNumberAllocator allocator;
+    
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:numbers-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(10);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE order_number_seq");
+        allocator = new OrderNumberAllocator(jdbcTemplate);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+    
+    @Test
+    void concurrentAllocationsAreUniqueAndInTodaysFormat() throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int n = 0; n < PER_THREAD; n++) {
+                    numbers.add(allocator.nextOrderNumber());
+                }
+                return null;
+            }));
+        }
+        
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        executor.shutdown();
+        int total = THREADS * PER_THREAD;
+        log.info("{} order numbers on {} threads in {} ms ({} numbers/s)",
+                total, THREADS, elapsedMillis, total * 1000L / elapsedMillis);
+        
+        assertThat(numbers).hasSize(total);
+        String prefix = "ORD-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-";
+        assertThat(numbers).allMatch(number -> number.startsWith(prefix));
+        assertThat(numbers).contains(prefix + "000001", prefix + String.format("%06d", total));
+    }
+}
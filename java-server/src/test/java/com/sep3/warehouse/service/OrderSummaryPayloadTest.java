@@ -0,0 +1,125 @@
+package com.sep3.warehouse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sep3.warehouse.cache.ProductLookupCache;
+import com.sep3.warehouse.ledger.InventoryLedger;
+import com.sep3.warehouse.reservation.HotStockReservations;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The order list screen should fetch summaries, not full orders: the summary page
+ * is a single projection query with no items behind it. Both pages are loaded
+ * and serialized the way the controllers return them, and the bytes and latency
+ * of a page of each are compared.
+ */
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.schema-locations=classpath:h2-types.sql"
+})
+@Import({OrderService.class})
+class OrderSummaryPayloadTest {
+    
+    private static final int ORDERS = 500;
+    private static final int ITEMS_PER_ORDER = 5;
+    private static final int PAGE = 50;
+    private static final int RUNS = 200;
+    
+    @MockBean
+    private OrderNumberAllocator orderNumberAllocator;
+    
+    @MockBean
+    private ProductLookupCache productLookupCache;
+    
+    @MockBean
+    private InventoryLedger inventoryLedger;
+    
+    @MockBean
+    private HotStockReservations hotStockReservations;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('CUSTOMER')");
+        jdbcTemplate.update("INSERT INTO users (username, email, password_hash, first_name, last_name, role_id, is_active) " +
+                "SELECT 'customer' || X, 'customer' || X || '@example.com', 'hash', 'First' || X, 'Last' || X, " +
+                "(SELECT id FROM roles), TRUE FROM SYSTEM_RANGE(1, 20)");
+        jdbcTemplate.update("INSERT INTO products (sku, name, price, quantity_in_stock, is_active, created_at) " +
+                "SELECT 'SKU-' || X, 'Product ' || X, 10, 100, TRUE, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, 50)");
+        jdbcTemplate.update("INSERT INTO orders (order_number, customer_id, status, total_amount, shipping_address, " +
+                "shipping_city, shipping_postal_code, shipping_country, shipping_phone, created_at, updated_at) " +
+                "SELECT 'ORD-' || X, (SELECT MIN(id) FROM users) + MOD(X, 20), 'PENDING', 50, " +
+                "'Street ' || X, 'Horsens', '8700', 'Denmark', '+45 1234 5678', " +
+                "DATEADD(SECOND, X, TIMESTAMP '2024-01-01 00:00:00'), LOCALTIMESTAMP FROM SYSTEM_RANGE(1, ?)", ORDERS);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, total_price) " +
+                "SELECT o.id * ? + X, o.id, (SELECT MIN(id) FROM products) + MOD(o.id + X, 50), 1, 10, 10 " +
+                "FROM orders o CROSS JOIN SYSTEM_RANGE(1, ?)", ITEMS_PER_ORDER, ITEMS_PER_ORDER);
+    }
+    
+    @Test
+    void summaryPageIsAFractionOfTheFullPage() throws Exception {
+        Pageable page = PageRequest.of(0, PAGE);
+        Measurement full = measure("full", pageable -> orderService.getAllOrders(pageable), page);
+        Measurement summary = measure("summary", pageable -> orderService.getOrderSummaries(null, pageable), page);
+        
+        log.info("Page of {} orders: summary {} bytes vs full {} bytes ({}%), p50 {} vs {} us, p99 {} vs {} us",
+                PAGE, summary.bytes, full.bytes, 100 * summary.bytes / full.bytes,
+                summary.p50Micros, full.p50Micros, summary.p99Micros, full.p99Micros);
+        
+        // Five item rows per order dominate the full payload
+        assertThat(summary.bytes).isLessThan(full.bytes / 3);
+    }
+    
+    /**
+     * Load and serialize a page repeatedly from a cleared persistence context, as a request would.
+     */
+    private Measurement measure(String name, Function<Pageable, Page<?>> loader, Pageable page) throws Exception {
+        long bytes = 0;
+        List<Long> nanos = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            entityManager.clear();
+            long started = System.nanoTime();
+            Page<?> result = loader.apply(page);
+            bytes = objectMapper.writeValueAsBytes(result.getContent()).length;
+            nanos.add(System.nanoTime() - started);
+            assertThat(result.getContent()).as("%s page", name).hasSize(PAGE);
+        }
+        // The first half warms up the JIT and statement caches
+        List<Long> measured = new ArrayList<>(nanos.subList(RUNS / 2, RUNS));
+        measured.sort(null);
+        return new Measurement(bytes,
+                measured.get(measured.size() / 2) / 1000,
+                measured.get((int) Math.ceil(measured.size() * 0.99) - 1) / 1000);
+    }
+    
+    private record Measurement(long bytes, long p50Micros, long p99Micros) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.sep3.warehouse.service;
+
+import com.sep3.warehouse.dto.shipment.DispatchWaveResult;
+import com.sep3.warehouse.dto.shipment.ShipmentDTO;
+import com.sep3.warehouse.entity.Order;
+import com.sep3.warehouse.entity.OrderStatus;
+import com.sep3.warehouse.entity.User;
+import com.sep3.warehouse.grpc.ShipmentGrpcClient;
+import com.sep3.warehouse.grpc.ShipmentStatusProjection;
+import com.sep3.warehouse.repository.OrderItemRepository;
+import com.sep3.warehouse.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ShipmentServiceTest {
+    
+    private static final Long ORDER_ID = 1L;
+    
+    private final ShipmentGrpcClient shipmentGrpcClient = mock(ShipmentGrpcClient.class);
+    private final ShipmentStatusProjection projection = new ShipmentStatusProjection();
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final Order order = Order.builder()
+            .id(ORDER_ID)
+            .status(OrderStatus.SHIPPED)
+            .totalAmount(BigDecimal.TEN)
+            .build();
+    private ShipmentService shipmentService;
+    
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(order));
+        
+        shipmentService = new ShipmentService(shipmentGrpcClient, projection, orderRepository,
+                orderItemRepository, new TransactionTemplate(transactionManager),
+                mock(ApplicationEventPublisher.class));
+    }
+    
+    @Test
+    void cancellationOfAnOlderShipmentIsSettledByTheProjection() {
+        projection.record(ShipmentDTO.builder().id(20L).orderId(ORDER_ID).build());
+        
+        shipmentService.onShipmentStatusChanged(ORDER_ID, 10L, "CANCELLED").join();
+        
+        verifyNoInteractions(shipmentGrpcClient);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+    }
+    
+    @Test
+    void cancellationWaitsForTheShipmentServiceWithoutBlocking() {
+        CompletableFuture<ShipmentDTO> lookup = new CompletableFuture<>();
+        when(shipmentGrpcClient.getShipmentByOrderId(ORDER_ID)).thenReturn(lookup);
+        
+        CompletableFuture<Void> applied = shipmentService.onShipmentStatusChanged(ORDER_ID, 10L, "CANCELLED");
+        
+        assertThat(applied).isNotDone();
+        lookup.complete(ShipmentDTO.builder().id(10L).orderId(ORDER_ID).build());
+        assertThat(applied).isCompleted();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.READY_FOR_SHIPMENT);
+    }
+    
+    @Test
+    void failedLookupFailsTheTransition() {
+        when(shipmentGrpcClient.getShipmentByOrderId(ORDER_ID))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+        
+        assertThat(shipmentService.onShipmentStatusChanged(ORDER_ID, 10L, "CANCELLED"))
+                .isCompletedExceptionally();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+    }
+    
+    @Test
+    void waveShipsClaimedOrdersAndReleasesTheFailedOnes() {
+        List<Long> claimed = List.of(1L, 2L);
+        when(orderRepository.findUnclaimedIdsByStatus(eq(OrderStatus.READY_FOR_SHIPMENT), any(), any()))
+                .thenReturn(claimed);
+        when(orderRepository.findOldestByIdIn(claimed)).thenReturn(List.of(readyOrder(1L), readyOrder(2L)));
+        when(orderRepository.markShipped(any(), any())).thenReturn(1);
+        when(shipmentGrpcClient.createShipments(any())).thenReturn(CompletableFuture.completedFuture(List.of(
+                new ShipmentGrpcClient.BatchResult(1L, ShipmentDTO.builder().id(10L).orderId(1L).build(), null),
+                new ShipmentGrpcClient.BatchResult(2L, null, "carrier rejected the address"))));
+        
+        DispatchWaveResult result = shipmentService.dispatchWave(10).join();
+        
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        verify(orderRepository).claimForDispatch(eq(claimed), any());
+        verify(orderRepository).markShipped(eq(List.of(1L)), any());
+        verify(orderRepository).releaseDispatchClaims(List.of(2L));
+    }
+    
+    @Test
+    void failedWaveReleasesEveryClaim() {
+        List<Long> claimed = List.of(1L, 2L);
+        when(orderRepository.findUnclaimedIdsByStatus(eq(OrderStatus.READY_FOR_SHIPMENT), any(), any()))
+                .thenReturn(claimed);
+        when(orderRepository.findOldestByIdIn(claimed)).thenReturn(List.of(readyOrder(1L), readyOrder(2L)));
+        when(shipmentGrpcClient.createShipments(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+        
+        assertThat(shipmentService.dispatchWave(10)).isCompletedExceptionally();
+        verify(orderRepository, never()).markShipped(any(), any());
+        verify(orderRepository).releaseDispatchClaims(argThat(ids -> ids.containsAll(claimed) && ids.size() == 2));
+    }
+    
+    private static Order readyOrder(Long id) {
+        return Order.builder()
+                .id(id)
+                .orderNumber("ORD-" + id)
+                .customer(User.builder().firstName("Ada").lastName("Lovelace").build())
+                .status(OrderStatus.READY_FOR_SHIPMENT)
+                .totalAmount(BigDecimal.TEN)
+                .build();
+    }
+}
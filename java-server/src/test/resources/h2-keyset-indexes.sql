@@ -0,0 +1,6 @@
+-- Keyset indexes from database/schema.sql (H2 has no partial indexes)
+CREATE INDEX idx_orders_created_id ON orders(created_at DESC, id DESC);
+CREATE INDEX idx_orders_status_created_id ON orders(status, created_at DESC, id DESC);
+CREATE INDEX idx_products_active_created_id ON products(created_at DESC, id DESC);
+CREATE INDEX idx_inventory_trans_created_id ON inventory_transactions(created_at DESC, id DESC);
+CREATE INDEX idx_inventory_trans_product_created_id ON inventory_transactions(product_id, created_at DESC, id DESC);
@@ -0,0 +1,2 @@
+-- Sequences from database/schema.sql that Hibernate does not create
+CREATE SEQUENCE order_number_seq;
@@ -0,0 +1,3 @@
+-- Stand-ins for the PostgreSQL enum types referenced by entity column definitions
+CREATE DOMAIN IF NOT EXISTS order_status AS VARCHAR(30);
+CREATE DOMAIN IF NOT EXISTS transaction_type AS VARCHAR(30);
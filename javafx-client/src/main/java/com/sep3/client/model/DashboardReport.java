@@ -0,0 +1,113 @@
+package com.sep3.client.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model class representing the server-side dashboard KPIs.
+ */
+public class DashboardReport {
+    private long totalProducts;
+    private long inStockCount;
+    private long lowStockCount;
+    private long outOfStockCount;
+    private BigDecimal totalInventoryValue;
+    private long totalOrders;
+    private BigDecimal totalRevenue;
+    private Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+    private List<CategoryStat> categories = new ArrayList<>();
+    private List<ProductStat> topProductsByValue = new ArrayList<>();
+    private List<ProductStat> topSellingProducts = new ArrayList<>();
+    private LocalDateTime generatedAt;
+    
+    public DashboardReport() {}
+    
+    // Getters and Setters
+    public long getTotalProducts() { return totalProducts; }
+    public void setTotalProducts(long totalProducts) { this.totalProducts = totalProducts; }
+    
+    public long getInStockCount() { return inStockCount; }
+    public void setInStockCount(long inStockCount) { this.inStockCount = inStockCount; }
+    
+    public long getLowStockCount() { return lowStockCount; }
+    public void setLowStockCount(long lowStockCount) { this.lowStockCount = lowStockCount; }
+    
+    public long getOutOfStockCount() { return outOfStockCount; }
+    public void setOutOfStockCount(long outOfStockCount) { this.outOfStockCount = outOfStockCount; }
+    
+    public BigDecimal getTotalInventoryValue() { return totalInventoryValue; }
+    public void setTotalInventoryValue(BigDecimal totalInventoryValue) { this.totalInventoryValue = totalInventoryValue; }
+    
+    public long getTotalOrders() { return totalOrders; }
+    public void setTotalOrders(long totalOrders) { this.totalOrders = totalOrders; }
+    
+    public BigDecimal getTotalRevenue() { return totalRevenue; }
+    public void setTotalRevenue(BigDecimal totalRevenue) { this.totalRevenue = totalRevenue; }
+    
+    public Map<String, Long> getOrdersByStatus() { return ordersByStatus; }
+    public void setOrdersByStatus(Map<String, Long> ordersByStatus) { this.ordersByStatus = ordersByStatus; }
+    
+    public List<CategoryStat> getCategories() { return categories; }
+    public void setCategories(List<CategoryStat> categories) { this.categories = categories; }
+    
+    public List<ProductStat> getTopProductsByValue() { return topProductsByValue; }
+    public void setTopProductsByValue(List<ProductStat> topProductsByValue) { this.topProductsByValue = topProductsByValue; }
+    
+    public List<ProductStat> getTopSellingProducts() { return topSellingProducts; }
+    public void setTopSellingProducts(List<ProductStat> topSellingProducts) { this.topSellingProducts = topSellingProducts; }
+    
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    
+    /**
+     * Product count and stock value for one category.
+     */
+    public static class CategoryStat {
+        private String category;
+        private long productCount;
+        private long totalUnits;
+        private BigDecimal totalValue;
+        
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+        
+        public long getProductCount() { return productCount; }
+        public void setProductCount(long productCount) { this.productCount = productCount; }
+        
+        public long getTotalUnits() { return totalUnits; }
+        public void setTotalUnits(long totalUnits) { this.totalUnits = totalUnits; }
+        
+        public BigDecimal getTotalValue() { return totalValue; }
+        public void setTotalValue(BigDecimal totalValue) { this.totalValue = totalValue; }
+    }
+    
+    /**
+     * A product in a top-10 list with its quantity and value.
+     */
+    public static class ProductStat {
+        private Long productId;
+        private String sku;
+        private String name;
+        private long quantity;
+        private BigDecimal value;
+        
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+        
+        public String getSku() { return sku; }
+        public void setSku(String sku) { this.sku = sku; }
+        
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        
+        public long getQuantity() { return quantity; }
+        public void setQuantity(long quantity) { this.quantity = quantity; }
+        
+        public BigDecimal getValue() { return value; }
+        public void setValue(BigDecimal value) { this.value = value; }
+    }
+}
@@ -40,6 +40,24 @@ public class OrderService {
         return httpClient.get(endpoint, type);
     }
     
+    /**
+     * Get order summaries using keyset pagination, optionally filtered by status.
+     * Pass the previous response's nextCursor as {@code after}, or null for the first page.
+     */
+    public CompletableFuture<ProductService.CursorResponse<Order>> getOrderSummariesAfter(String status, String after, int size) {
+        logger.debug("Fetching order summaries after cursor - size: {}, status: {}", size, status);
+        
+        String endpoint = String.format("/orders/summary/cursor?size=%d", size);
+        if (status != null && !status.isEmpty()) {
+            endpoint += "&status=" + status;
+        }
+        if (after != null) {
+            endpoint += "&after=" + after;
+        }
+        Type type = new com.google.gson.reflect.TypeToken<ProductService.CursorResponse<Order>>(){}.getType();
+        return httpClient.get(endpoint, type);
+    }
+    
     /**
      * Get order by ID.
      */
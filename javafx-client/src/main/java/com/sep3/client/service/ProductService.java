@@ -41,6 +41,22 @@ public class ProductService {
         return httpClient.get(endpoint, type);
     }
     
+    /**
+     * Get active products using keyset pagination.
+     * Pass the previous response's nextCursor as {@code after}, or null for the first page.
+     */
+    public CompletableFuture<CursorResponse<Product>> getProductsAfter(String after, int size) {
+        logger.debug("Fetching products after cursor - size: {}", size);
+        
+        String endpoint = String.format("/products/cursor?size=%d", size);
+        if (after != null) {
+            endpoint += "&after=" + after;
+        }
+        
+        Type type = new com.google.gson.reflect.TypeToken<CursorResponse<Product>>(){}.getType();
+        return httpClient.get(endpoint, type);
+    }
+    
     /**
      * Get product by ID.
      */
@@ -148,4 +164,12 @@ public class ProductService {
         public int size;
         public int number;
     }
+    
+    // Cursor (keyset) page response wrapper
+    public static class CursorResponse<T> {
+        public List<T> content;
+        public int size;
+        public boolean hasNext;
+        public String nextCursor;
+    }
 }
@@ -0,0 +1,36 @@
+package com.sep3.client.service;
+
+import com.sep3.client.model.DashboardReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service for reports and dashboard KPIs.
+ */
+public class ReportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+    private final HttpClientService httpClient;
+    
+    private static ReportService instance;
+    
+    private ReportService() {
+        this.httpClient = HttpClientService.getInstance();
+    }
+    
+    public static synchronized ReportService getInstance() {
+        if (instance == null) {
+            instance = new ReportService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Get all dashboard KPIs, aggregated on the server.
+     */
+    public CompletableFuture<DashboardReport> getDashboard() {
+        logger.debug("Fetching dashboard report");
+        return httpClient.get("/reports/dashboard", DashboardReport.class);
+    }
+}
@@ -103,8 +103,8 @@ public class OrderListViewController {
         
         // Update page info
         viewModel.currentPageProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
-        viewModel.totalPagesProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
-        viewModel.totalElementsProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
+        viewModel.getOrders().addListener((javafx.collections.ListChangeListener<Order>) change -> updatePageInfo());
+        viewModel.hasNextPageProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
         
         // Handle table selection
         orderTable.getSelectionModel().selectedItemProperty().addListener(
@@ -149,11 +149,9 @@ public class OrderListViewController {
     
     private void updatePageInfo() {
         int current = viewModel.currentPageProperty().get() + 1;
-        int total = viewModel.totalPagesProperty().get();
-        int elements = viewModel.totalElementsProperty().get();
-        pageInfoLabel.setText(String.format("Page %d of %d (%d orders)", current, total, elements));
+        pageInfoLabel.setText(String.format("Page %d (%d orders shown)", current, viewModel.getOrders().size()));
         
         prevButton.setDisable(viewModel.currentPageProperty().get() == 0);
-        nextButton.setDisable(viewModel.currentPageProperty().get() >= viewModel.totalPagesProperty().get() - 1);
+        nextButton.setDisable(!viewModel.hasNextPageProperty().get());
     }
 }
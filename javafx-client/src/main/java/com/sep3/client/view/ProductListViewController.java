@@ -70,6 +70,8 @@ public class ProductListViewController {
         viewModel.currentPageProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
         viewModel.totalPagesProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
         viewModel.totalElementsProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
+        viewModel.hasNextPageProperty().addListener((obs, oldVal, newVal) -> updatePageInfo());
+        viewModel.getProducts().addListener((javafx.collections.ListChangeListener<Product>) change -> updatePageInfo());
         
         // Handle table selection
         productTable.getSelectionModel().selectedItemProperty().addListener(
@@ -381,10 +383,14 @@ public class ProductListViewController {
         int current = viewModel.currentPageProperty().get() + 1;
         int total = viewModel.totalPagesProperty().get();
         int elements = viewModel.totalElementsProperty().get();
-        pageInfoLabel.setText(String.format("Page %d of %d (%d items)", current, total, elements));
+        if (elements >= 0) {
+            pageInfoLabel.setText(String.format("Page %d of %d (%d items)", current, total, elements));
+        } else {
+            pageInfoLabel.setText(String.format("Page %d (%d items shown)", current, viewModel.getProducts().size()));
+        }
         
         prevButton.setDisable(viewModel.currentPageProperty().get() == 0);
-        nextButton.setDisable(viewModel.currentPageProperty().get() >= viewModel.totalPagesProperty().get() - 1);
+        nextButton.setDisable(!viewModel.hasNextPageProperty().get());
     }
     
     private void showError(String message) {
@@ -8,6 +8,8 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -30,10 +32,13 @@ public class OrderListViewModel {
     
     // Pagination
     private final IntegerProperty currentPage = new SimpleIntegerProperty(0);
-    private final IntegerProperty totalPages = new SimpleIntegerProperty(0);
-    private final IntegerProperty totalElements = new SimpleIntegerProperty(0);
+    private final BooleanProperty hasNextPage = new SimpleBooleanProperty(false);
     private final int pageSize = 20;
     
+    // Keyset pagination: cursor used to fetch each visited page (index = page number)
+    private final List<String> pageCursors = new ArrayList<>();
+    private String nextCursor;
+    
     // Callback for order selection
     private Consumer<Order> onOrderSelected;
     
@@ -58,17 +63,20 @@ public class OrderListViewModel {
         
         logger.debug("Loading orders - page: {}, status: {}", currentPage.get(), status);
         
-        var future = (status == null || status.isEmpty())
-                ? orderService.getAllOrders(currentPage.get(), pageSize)
-                : orderService.getOrdersByStatus(status, currentPage.get(), pageSize);
+        if (currentPage.get() == 0) {
+            pageCursors.clear();
+            pageCursors.add(null);
+        }
+        String after = pageCursors.get(currentPage.get());
         
-        future.thenAccept(response -> Platform.runLater(() -> {
+        orderService.getOrderSummariesAfter(status, after, pageSize)
+                .thenAccept(response -> Platform.runLater(() -> {
                     orders.clear();
                     if (response.content != null) {
                         orders.addAll(response.content);
                     }
-                    totalPages.set(response.totalPages);
-                    totalElements.set(response.totalElements);
+                    nextCursor = response.nextCursor;
+                    hasNextPage.set(response.hasNext);
                     isLoading.set(false);
                     
                     logger.info("Loaded {} orders", orders.size());
@@ -87,8 +95,14 @@ public class OrderListViewModel {
      * Go to next page.
      */
     public void nextPage() {
-        if (currentPage.get() < totalPages.get() - 1) {
-            currentPage.set(currentPage.get() + 1);
+        if (hasNextPage.get()) {
+            int next = currentPage.get() + 1;
+            if (pageCursors.size() > next) {
+                pageCursors.set(next, nextCursor);
+            } else {
+                pageCursors.add(nextCursor);
+            }
+            currentPage.set(next);
             loadOrders();
         }
     }
@@ -128,8 +142,7 @@ public class OrderListViewModel {
     public StringProperty errorMessageProperty() { return errorMessage; }
     public ObjectProperty<Order> selectedOrderProperty() { return selectedOrder; }
     public IntegerProperty currentPageProperty() { return currentPage; }
-    public IntegerProperty totalPagesProperty() { return totalPages; }
-    public IntegerProperty totalElementsProperty() { return totalElements; }
+    public BooleanProperty hasNextPageProperty() { return hasNextPage; }
     
     // Callback setter
     public void setOnOrderSelected(Consumer<Order> callback) {
@@ -8,6 +8,8 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -32,8 +34,14 @@ public class ProductListViewModel {
     private final IntegerProperty currentPage = new SimpleIntegerProperty(0);
     private final IntegerProperty totalPages = new SimpleIntegerProperty(0);
     private final IntegerProperty totalElements = new SimpleIntegerProperty(0);
+    private final BooleanProperty hasNextPage = new SimpleBooleanProperty(false);
     private final int pageSize = 20;
     
+    // Keyset pagination for browsing: cursor used to fetch each visited page (index = page number).
+    // Totals are only known in search mode; browsing reports -1.
+    private final List<String> pageCursors = new ArrayList<>();
+    private String nextCursor;
+    
     // Callback for product selection
     private Consumer<Product> onProductSelected;
     
@@ -62,14 +70,22 @@ public class ProductListViewModel {
         
         logger.debug("Loading products - page: {}", currentPage.get());
         
-        productService.getAllProducts(currentPage.get(), pageSize)
+        if (currentPage.get() == 0) {
+            pageCursors.clear();
+            pageCursors.add(null);
+        }
+        String after = pageCursors.get(currentPage.get());
+        
+        productService.getProductsAfter(after, pageSize)
                 .thenAccept(response -> Platform.runLater(() -> {
                     products.clear();
                     if (response.content != null) {
                         products.addAll(response.content);
                     }
-                    totalPages.set(response.totalPages);
-                    totalElements.set(response.totalElements);
+                    nextCursor = response.nextCursor;
+                    totalPages.set(-1);
+                    totalElements.set(-1);
+                    hasNextPage.set(response.hasNext);
                     isLoading.set(false);
                     
                     logger.info("Loaded {} products", products.size());
@@ -107,6 +123,7 @@ public class ProductListViewModel {
                     }
                     totalPages.set(response.totalPages);
                     totalElements.set(response.totalElements);
+                    hasNextPage.set(currentPage.get() < response.totalPages - 1);
                     isLoading.set(false);
                     
                     logger.info("Search returned {} products", products.size());
@@ -125,13 +142,21 @@ public class ProductListViewModel {
      * Go to next page.
      */
     public void nextPage() {
-        if (currentPage.get() < totalPages.get() - 1) {
-            currentPage.set(currentPage.get() + 1);
-            if (searchQuery.get().isEmpty()) {
-                loadProducts();
+        if (!hasNextPage.get()) {
+            return;
+        }
+        int next = currentPage.get() + 1;
+        if (searchQuery.get().isEmpty()) {
+            if (pageCursors.size() > next) {
+                pageCursors.set(next, nextCursor);
             } else {
-                searchProducts();
+                pageCursors.add(nextCursor);
             }
+            currentPage.set(next);
+            loadProducts();
+        } else {
+            currentPage.set(next);
+            searchProducts();
         }
     }
     
@@ -201,6 +226,7 @@ public class ProductListViewModel {
     public IntegerProperty currentPageProperty() { return currentPage; }
     public IntegerProperty totalPagesProperty() { return totalPages; }
     public IntegerProperty totalElementsProperty() { return totalElements; }
+    public BooleanProperty hasNextPageProperty() { return hasNextPage; }
     
     // Callback setter
     public void setOnProductSelected(Consumer<Product> callback) {